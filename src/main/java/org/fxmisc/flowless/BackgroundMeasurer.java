@@ -0,0 +1,152 @@
+package org.fxmisc.flowless;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import javafx.animation.AnimationTimer;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.ObservableList;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+
+import org.reactfx.Guard;
+import org.reactfx.Subscription;
+import org.reactfx.value.Val;
+
+/**
+ * Measures the lengths of items that have not been displayed yet, so that {@link SizeTracker}'s total length
+ * estimate converges to the exact total length. Items are measured on pulses in which the viewport does not need
+ * to be laid out, for at most a {@link #budget given time} per pulse, with cells from the viewport's cell pool
+ * that are put into a hidden {@link #getMeasuringPane() pane} while they are measured.
+ */
+final class BackgroundMeasurer<T, C extends Cell<T, ?>> {
+
+    private final Parent owner;
+    private final ObservableList<T> items;
+    private final CellListManager<T, C> cellListManager;
+    private final SizeTracker sizeTracker;
+    private final Function<? super T, ?> sizeKeyOf;
+
+    /** How long to measure items per pulse at most; measuring is disabled if null or not positive */
+    private final ObservableValue<Duration> budget;
+
+    private final Group measuringPane = new Group();
+
+    /** The index from which the next unknown length is looked for */
+    private int nextIndex = 0;
+
+    private boolean running = false;
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            measure();
+        }
+    };
+
+    private final Subscription subscription;
+
+    /**
+     * @param owner the node whose layout is waited for; its scene is used to style the measured cells
+     * @param sizeKeyOf returns the key under which the length of an item is cached, or null
+     */
+    BackgroundMeasurer(
+            Parent owner,
+            ObservableList<T> items,
+            CellListManager<T, C> cellListManager,
+            SizeTracker sizeTracker,
+            Function<? super T, ?> sizeKeyOf,
+            ObservableValue<Duration> budget) {
+        this.owner = owner;
+        this.items = items;
+        this.cellListManager = cellListManager;
+        this.sizeTracker = sizeTracker;
+        this.sizeKeyOf = sizeKeyOf;
+        this.budget = budget;
+
+        measuringPane.setManaged(false);
+        measuringPane.setVisible(false);
+
+        this.subscription = Subscription.multi(
+                Val.observeInvalidations(budget, obs -> start()),
+                Val.observeInvalidations(owner.sceneProperty(), obs -> start()),
+                sizeTracker.observeLengthChanges(this::start));
+        start();
+    }
+
+    /** The hidden pane that measured cells are put into, to be added to the owner's children */
+    public Node getMeasuringPane() {
+        return measuringPane;
+    }
+
+    public void dispose() {
+        subscription.unsubscribe();
+        stop();
+    }
+
+    private boolean isEnabled() {
+        Duration d = budget.getValue();
+        return d != null && !d.isZero() && !d.isNegative();
+    }
+
+    private void start() {
+        if(!running && isEnabled()) {
+            running = true;
+            timer.start();
+        }
+    }
+
+    private void stop() {
+        if(running) {
+            running = false;
+            timer.stop();
+        }
+    }
+
+    private void measure() {
+        // without a scene, there is no pulse to wait for until the owner is added to one, which restarts measuring
+        if(!isEnabled() || sizeTracker.measuredLengthFractionProperty().getValue() >= 1.0
+                || owner.getScene() == null) {
+            stop();
+            return;
+        } else if(owner.isNeedsLayout() || sizeTracker.getViewportBreadth() <= 0) {
+            // not idle
+            return;
+        }
+
+        long deadline = System.nanoTime() + budget.getValue().toNanos();
+        Guard g = sizeTracker.suspendNotifications();
+        try {
+            do {
+                int index = sizeTracker.nextUnknownLength(nextIndex);
+                if(index < 0) {
+                    index = sizeTracker.nextUnknownLength(0);
+                }
+                if(index < 0) {
+                    stop();
+                    return;
+                } else if(!measure(index)) {
+                    return;
+                }
+                nextIndex = index + 1;
+            } while(System.nanoTime() < deadline);
+        } finally {
+            g.close();
+        }
+    }
+
+    private boolean measure(int itemIndex) {
+        T item = items.get(itemIndex);
+        C cell = cellListManager.getOffscreenCell(item);
+        Node node = cell.getNode();
+        measuringPane.getChildren().add(node);
+        try {
+            node.applyCss();
+            return sizeTracker.measureLength(itemIndex, cell, sizeKeyOf.apply(item));
+        } finally {
+            measuringPane.getChildren().remove(node);
+            cellListManager.releaseOffscreenCell(cell);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package org.fxmisc.flowless;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * The category of each item, along with the known lengths of the items of each category, so that unknown lengths
+ * can be estimated from the lengths of items of the same category. Each category has its own {@link SizeStore}
+ * over all items, in which only the lengths of the category's items are known.
+ *
+ * <p>
+ *     The categories are kept in pages, like the sizes of a {@link SizeStore}, each of which counts the items of
+ *     each category in it. Replacing items only touches the pages at the boundaries of the change, and the number
+ *     of items of a category before an index takes the counts of the pages before it, which are summed up again
+ *     after a change in time proportional to the number of pages rather than the number of items.
+ * </p>
+ */
+final class CategorizedLengths {
+
+    /** The number of items a page holds at most */
+    static final int PAGE_SIZE = 1024;
+
+    private static final class Page {
+        final int[] categories = new int[PAGE_SIZE];
+        int size;
+
+        /** Number of items of each category in the page, by category id, up to the greatest id in the page */
+        int[] counts = new int[0];
+
+        Page(int size) {
+            this.size = size;
+        }
+
+        int countOf(int category) {
+            return category < counts.length ? counts[category] : 0;
+        }
+
+        void count(int category, int delta) {
+            if(category >= counts.length) {
+                counts = Arrays.copyOf(counts, category + 1);
+            }
+            counts[category] += delta;
+        }
+
+        int countBefore(int category, int end) {
+            if(countOf(category) == 0) {
+                return 0;
+            } else if(end >= size) {
+                return counts[category];
+            }
+            int n = 0;
+            for(int i = 0; i < end; ++i) {
+                if(categories[i] == category) {
+                    ++n;
+                }
+            }
+            return n;
+        }
+
+        /** Removes the items in {@code [from, to)} and moves the ones after them down */
+        void remove(int from, int to) {
+            for(int i = from; i < to; ++i) {
+                count(categories[i], -1);
+            }
+            System.arraycopy(categories, to, categories, from, size - to);
+            size -= to - from;
+        }
+
+        /** Moves the items in {@code [from, size)} into a new page */
+        Page split(int from) {
+            Page page = new Page(0);
+            for(int i = from; i < size; ++i) {
+                page.add(categories[i]);
+                count(categories[i], -1);
+            }
+            size = from;
+            return page;
+        }
+
+        /** Moves the items of the given page to the end of this one */
+        void append(Page page) {
+            for(int i = 0; i < page.size; ++i) {
+                add(page.categories[i]);
+            }
+        }
+
+        private void add(int category) {
+            categories[size++] = category;
+            count(category, 1);
+        }
+    }
+
+    private final Map<Object, Integer> categoryIds = new HashMap<>();
+
+    /** Whether the stores of the lengths count how often each length occurs */
+    private boolean countValues;
+
+    private final List<SizeStore> lengths = new ArrayList<>();
+    private int[] counts = new int[0];
+
+    private final List<Page> pages = new ArrayList<>();
+    private int size = 0;
+
+    /** Index of the first item of each page, and number of items of each category before each page */
+    private int[] pageStarts = new int[0];
+    private int[][] countsBefore = new int[0][];
+    private boolean pageStartsValid = true;
+    private boolean prefixesValid = true;
+
+    /**
+     * @param categoryOf returns the category of the item at the given index
+     * @param knownLengths the lengths known so far, by item index
+     * @param countValues whether the stores of the lengths count how often each length occurs, see
+     *                    {@link SizeStore#setCountValues(boolean)}
+     */
+    CategorizedLengths(IntFunction<?> categoryOf, SizeStore knownLengths, boolean countValues) {
+        this.countValues = countValues;
+        replace(0, 0, knownLengths.size(), categoryOf);
+        for(int i = knownLengths.nextKnown(0); i >= 0; i = knownLengths.nextKnown(i + 1)) {
+            set(i, knownLengths.get(i));
+        }
+    }
+
+    public int categoryCount() {
+        return lengths.size();
+    }
+
+    /** Returns the lengths of the items of the given category, by item index */
+    public SizeStore lengthsOf(int category) {
+        return lengths.get(category);
+    }
+
+    /** Returns the number of items of the given category */
+    public int countOf(int category) {
+        return counts[category];
+    }
+
+    /** Returns the number of items of the given category before the given index */
+    public int countBefore(int category, int index) {
+        if(index >= size) {
+            return counts[category];
+        }
+        int p = pageOf(index);
+        updatePrefixes();
+        return countsBefore[p][category] + pages.get(p).countBefore(category, index - pageStarts[p]);
+    }
+
+    public void set(int index, double length) {
+        lengths.get(categoryAt(index)).set(index, length);
+    }
+
+    public void forget(int index) {
+        lengths.get(categoryAt(index)).forget(index);
+    }
+
+    /** Sets whether the stores of the lengths count how often each length occurs */
+    public void setCountValues(boolean countValues) {
+        this.countValues = countValues;
+        for(SizeStore store: lengths) {
+            store.setCountValues(countValues);
+        }
+    }
+
+    public void forgetAll() {
+        for(SizeStore store: lengths) {
+            store.forgetAll();
+        }
+    }
+
+    /**
+     * Takes the category of the item at the given index again, e.g. because the item was replaced without the
+     * items being replaced as far as the lengths are concerned. Its length is forgotten if the category changes.
+     *
+     * @param categoryOf returns the category of the item at the given index
+     */
+    public void recategorize(int index, IntFunction<?> categoryOf) {
+        int category = idOf(categoryOf.apply(index));
+        int p = pageOf(index);
+        Page page = pages.get(p);
+        int i = index - pageStarts[p];
+        int old = page.categories[i];
+        if(category != old) {
+            lengths.get(old).forget(index);
+            page.categories[i] = category;
+            page.count(old, -1);
+            page.count(category, 1);
+            --counts[old];
+            ++counts[category];
+            prefixesValid = false;
+        }
+    }
+
+    /**
+     * Replaces {@code removedSize} items starting at {@code from} with {@code addedSize} items of unknown length
+     *
+     * @param categoryOf returns the category of the item at the given index, after the replacement
+     */
+    public void replace(int from, int removedSize, int addedSize, IntFunction<?> categoryOf) {
+        if(removedSize > 0) {
+            remove(from, from + removedSize);
+        }
+        if(addedSize > 0) {
+            insert(from, addedSize);
+        }
+        for(SizeStore store: lengths) {
+            store.replace(from, removedSize, addedSize);
+        }
+
+        if(addedSize > 0) {
+            // after the stores are replaced, so that categories that are new get a store of the new size
+            int first = pageOf(from);
+            int p = first;
+            int i = from - pageStarts[p];
+            for(int index = from; index < from + addedSize; ++index, ++i) {
+                Page page = pages.get(p);
+                if(i == page.size) {
+                    page = pages.get(++p);
+                    i = 0;
+                }
+                int category = idOf(categoryOf.apply(index));
+                page.categories[i] = category;
+                page.count(category, 1);
+                ++counts[category];
+            }
+            mergeAround(p);
+            mergeAround(first - 1);
+        }
+    }
+
+    private int categoryAt(int index) {
+        int p = pageOf(index);
+        return pages.get(p).categories[index - pageStarts[p]];
+    }
+
+    private void remove(int from, int to) {
+        int first = pageOf(from);
+        int p = first;
+        int offset = from - pageStarts[p];
+        int n = to - from;
+        while(n > 0) {
+            Page page = pages.get(p);
+            int k = Math.min(n, page.size - offset);
+            for(int i = offset; i < offset + k; ++i) {
+                --counts[page.categories[i]];
+            }
+            if(offset == 0 && k == page.size) {
+                pages.remove(p);
+            } else {
+                page.remove(offset, offset + k);
+                ++p;
+                offset = 0;
+            }
+            n -= k;
+        }
+        size -= to - from;
+        pageStartsValid = false;
+        prefixesValid = false;
+        mergeAround(first);
+        mergeAround(first - 1);
+    }
+
+    /**
+     * Inserts {@code n} items at the given index, in pages of their own, whose categories are yet to be filled in
+     * and counted
+     */
+    private void insert(int at, int n) {
+        int p;
+        if(at == size) {
+            p = pages.size();
+        } else {
+            p = pageOf(at);
+            int offset = at - pageStarts[p];
+            if(offset > 0) {
+                pages.add(p + 1, pages.get(p).split(offset));
+                ++p;
+            }
+        }
+        for(int remaining = n; remaining > 0; remaining -= PAGE_SIZE) {
+            pages.add(p++, new Page(Math.min(remaining, PAGE_SIZE)));
+        }
+        size += n;
+        pageStartsValid = false;
+        prefixesValid = false;
+    }
+
+    private int idOf(Object category) {
+        Integer id = categoryIds.get(category);
+        if(id == null) {
+            id = lengths.size();
+            categoryIds.put(category, id);
+            SizeStore store = new SizeStore(countValues);
+            store.replace(0, 0, size);
+            lengths.add(store);
+            counts = Arrays.copyOf(counts, id + 1);
+            prefixesValid = false;
+        }
+        return id;
+    }
+
+    /** Merges the page at the given index with the one after it, if they fit into one page */
+    private void mergeAround(int p) {
+        if(p >= 0 && p + 1 < pages.size() && pages.get(p).size + pages.get(p + 1).size <= PAGE_SIZE) {
+            pages.get(p).append(pages.remove(p + 1));
+            pageStartsValid = false;
+            prefixesValid = false;
+        }
+    }
+
+    private int pageOf(int index) {
+        if(index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index + " not in [0, " + size + ")");
+        }
+        updatePageStarts();
+        int p = Arrays.binarySearch(pageStarts, 0, pages.size(), index);
+        return p >= 0 ? p : -p - 2;
+    }
+
+    private void updatePageStarts() {
+        if(!pageStartsValid) {
+            if(pageStarts.length < pages.size()) {
+                pageStarts = new int[pages.size() * 2];
+            }
+            int start = 0;
+            for(int p = 0; p < pages.size(); ++p) {
+                pageStarts[p] = start;
+                start += pages.get(p).size;
+            }
+            pageStartsValid = true;
+        }
+    }
+
+    private void updatePrefixes() {
+        if(!prefixesValid) {
+            if(countsBefore.length < pages.size()) {
+                countsBefore = new int[pages.size() * 2][];
+            }
+            int[] running = new int[categoryCount()];
+            for(int p = 0; p < pages.size(); ++p) {
+                countsBefore[p] = running.clone();
+                Page page = pages.get(p);
+                for(int c = 0; c < page.counts.length; ++c) {
+                    running[c] += page.counts[c];
+                }
+            }
+            prefixesValid = true;
+        }
+    }
+}
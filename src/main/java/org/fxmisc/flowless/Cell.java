@@ -38,6 +38,10 @@ public interface Cell<T, N extends Node> {
      * this method is called to display a different item. {@link #reset()}
      * will have been called before a call to this method.
      *
+     * <p>This is also how a displayed cell is updated when its item is
+     * replaced in the list of items, in which case the cell keeps its place
+     * in the viewport instead of going through the pool of reusable cells.
+     *
      * <p>The default implementation throws
      * {@link UnsupportedOperationException}.
      *
@@ -56,6 +60,23 @@ public interface Cell<T, N extends Node> {
         // do nothing by default
     }
 
+    /**
+     * Called after each layout of the viewport, while this cell is visible, with the part of the cell that is in
+     * view along the length of the viewport (vertically in a vertical viewport), in the cell's own coordinates:
+     * from {@code start}, which is 0 unless the cell starts before the viewport, to {@code end}, which is the
+     * cell's length unless the cell ends after the viewport.
+     *
+     * <p>A cell that is much longer than the viewport, e.g. a paragraph of many thousand lines, can use this to lay
+     * out and render only the part that is in view. Its preferred length should still be its full length, which
+     * is what the viewport's size estimates are based on. A cell that requests layout from this method is laid
+     * out again in the same layout pass.
+     *
+     * <p>Default implementation does nothing.
+     */
+    default void updateVisibleRange(double start, double end) {
+        // do nothing by default
+    }
+
     /**
      * Called when this cell is no longer used to display its item.
      * If this cell is reusable, it may later be asked to display a different
@@ -0,0 +1,139 @@
+package org.fxmisc.flowless;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Region;
+
+/**
+ * The canvas on which a viewport with {@link RenderedCell}s draws its items, behind the cells' nodes, at the
+ * positions the cells were laid out at, except for the items whose cell is editing. The pinned section header, if
+ * any, is drawn last, over the items it covers. The items are drawn at most
+ * once per pulse, after the layout pass of a pulse in which the cells were laid out or the canvas was resized.
+ */
+final class CellCanvas<T> {
+
+    private final CellRenderer<? super T> renderer;
+    private final Canvas canvas = new Canvas();
+    private final Runnable pulseListener = this::paintIfRequested;
+
+    private Navigator<?, ?> navigator = null;
+    private List<RenderedCell<T>> presentCells = null;
+    private Supplier<RenderedCell<T>> stickyHeader = null;
+
+    private boolean paintRequested = false;
+
+    CellCanvas(CellRenderer<? super T> renderer) {
+        this.renderer = renderer;
+        canvas.setManaged(false);
+        canvas.setMouseTransparent(true);
+        canvas.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if(oldScene != null) {
+                oldScene.removePostLayoutPulseListener(pulseListener);
+            }
+            if(newScene != null) {
+                newScene.addPostLayoutPulseListener(pulseListener);
+                requestPaint();
+            }
+        });
+    }
+
+    /**
+     * Attaches the canvas to the viewport's navigator, after whose layout passes the items are drawn again
+     *
+     * @param presentCells the cells that the navigator lays out
+     * @param stickyHeader the cell of the section header that the navigator pins, or null if none is pinned
+     */
+    void attach(Navigator<?, ?> navigator, List<RenderedCell<T>> presentCells, Supplier<RenderedCell<T>> stickyHeader) {
+        this.navigator = navigator;
+        this.presentCells = presentCells;
+        this.stickyHeader = stickyHeader;
+        navigator.needsLayoutProperty().addListener((obs, wasNeeded, needed) -> {
+            if(!needed) {
+                requestPaint();
+            }
+        });
+    }
+
+    /** The canvas, to be added to the viewport's children */
+    Canvas getCanvas() {
+        return canvas;
+    }
+
+    void resize(double width, double height) {
+        if(canvas.getWidth() != width || canvas.getHeight() != height) {
+            canvas.setWidth(width);
+            canvas.setHeight(height);
+            requestPaint();
+        }
+    }
+
+    /** Makes the items be drawn again after the next layout pass */
+    void requestPaint() {
+        Scene scene = canvas.getScene();
+        if(!paintRequested && scene != null) {
+            paintRequested = true;
+            Platform.requestNextPulse();
+        }
+    }
+
+    private void paintIfRequested() {
+        if(paintRequested) {
+            paintRequested = false;
+            paint();
+        }
+    }
+
+    private void paint() {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        gc.clearRect(0, 0, width, height);
+        if(presentCells == null) {
+            return;
+        }
+
+        for(RenderedCell<T> cell: presentCells) {
+            paintCell(gc, cell, navigator.getLayoutX(), navigator.getLayoutY(), false);
+        }
+        RenderedCell<T> header = stickyHeader.get();
+        if(header != null) {
+            Node pane = navigator.getStickyHeaderPane();
+            paintCell(gc, header, pane.getLayoutX(), pane.getLayoutY(), true);
+        }
+    }
+
+    /**
+     * Draws the item of the given cell, whose node is laid out at the given offset, if it is visible
+     *
+     * @param cover whether to clear the items drawn where the cell is first
+     */
+    private void paintCell(GraphicsContext gc, RenderedCell<T> cell, double dx, double dy, boolean cover) {
+        Region node = cell.getNode();
+        if(!node.isVisible() || cell.isEditing()) {
+            return;
+        }
+        double x = dx + node.getLayoutX();
+        double y = dy + node.getLayoutY();
+        double w = node.getWidth();
+        double h = node.getHeight();
+        if(x + w <= 0 || x >= canvas.getWidth() || y + h <= 0 || y >= canvas.getHeight()) {
+            return;
+        }
+        if(cover) {
+            gc.clearRect(x, y, w, h);
+        }
+        gc.save();
+        gc.beginPath();
+        gc.rect(x, y, w, h);
+        gc.clip();
+        gc.translate(x, y);
+        renderer.render(gc, cell.getItem(), cell.getIndex(), w, h);
+        gc.restore();
+    }
+}
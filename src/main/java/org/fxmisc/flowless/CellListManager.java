@@ -1,40 +1,90 @@
 package org.fxmisc.flowless;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 
+import javafx.beans.value.ObservableValue;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.scene.Node;
 import javafx.scene.control.IndexRange;
 import javafx.scene.input.ScrollEvent;
 
+import org.reactfx.EventSource;
+import org.reactfx.EventStream;
 import org.reactfx.EventStreams;
 import org.reactfx.Subscription;
+import org.reactfx.collection.ListChangeAccumulator;
 import org.reactfx.collection.LiveList;
+import org.reactfx.collection.LiveListBase;
 import org.reactfx.collection.MemoizationList;
 import org.reactfx.collection.QuasiListModification;
+import org.reactfx.collection.UnmodifiableByDefaultLiveList;
 
 /**
  * Tracks all of the cells that the viewport can display ({@link #cells}) and which cells the viewport is currently
  * displaying ({@link #presentCells}).
+ *
+ * <p>
+ *     When an item whose cell is present and {@link Cell#isReusable() reusable} is replaced, the cell is updated
+ *     with the new item in place: it is neither removed from {@link #cells} nor returned to the pool, and only
+ *     its size needs to be recomputed (see {@link #cellsUpdatedInPlace()}). When a change of the items moves
+ *     an item whose cell is present (e.g. sorting), the cell moves along with it (see {@link ItemList}).
+ * </p>
  */
 final class CellListManager<T, C extends Cell<T, ? extends Node>> {
 
     private final Node owner;
+    private final ObservableList<T> items;
+    private final ObservableValue<? extends Function<? super T, ?>> itemKey;
     private final CellPool<T, C> cellPool;
+
+    /** The pool of low-detail cells while those are displayed instead of the regular cells, or null */
+    private CellPool<T, C> lowDetailPool = null;
+
+    /** The low-detail cells that are present or detached, which go back to {@link #lowDetailPool} */
+    private final Set<C> lowDetailCells = Collections.newSetFromMap(new IdentityHashMap<>());
     private final MemoizationList<C> cells;
     private final LiveList<C> presentCells;
     private final LiveList<Node> cellNodes;
+    private final EventSource<Integer> cellsUpdatedInPlace = new EventSource<>();
+    private final EventSource<C> releasedCells = new EventSource<>();
+    private final EventSource<T> itemsSetAgain = new EventSource<>();
+
+    /** Present cells that the current change of the items moves to another position or detaches */
+    private final Set<C> movingCells = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Cells of removed items, by item, that are kept until the next layout in case their item is added back,
+     * e.g. when an item is moved by removing it and adding it at another position.
+     */
+    private final Map<T, C> detachedCells = new IdentityHashMap<>();
+
+    /** The item of each cell that is present or detached */
+    private final Map<C, T> cellItems = new IdentityHashMap<>();
+
+    /** Cell to be returned for the next item the cell list asks for */
+    private C reattachedCell = null;
 
     private final Subscription presentCellsSubscription;
 
     public CellListManager(
             Node owner,
             ObservableList<T> items,
-            Function<? super T, ? extends C> cellFactory) {
+            Function<? super T, ? extends C> cellFactory,
+            ObservableValue<? extends Function<? super T, ?>> itemKey) {
         this.owner = owner;
+        this.items = items;
+        this.itemKey = itemKey;
         this.cellPool = new CellPool<>(cellFactory);
-        this.cells = LiveList.map(items, this::cellForItem).memoize();
+        this.cells = LiveList.map(new ItemList(), this::cellForItem).memoize();
         this.presentCells = cells.memoizedItems();
         this.cellNodes = presentCells.map(Cell::getNode);
         this.presentCellsSubscription = presentCells.observeQuasiModifications(this::presentCellsChanged);
@@ -43,9 +93,13 @@ final class CellListManager<T, C extends Cell<T, ? extends Node>> {
     public void dispose() {
         // return present cells to pool *before* unsubscribing,
         // because stopping to observe memoized items may clear memoized items
-        presentCells.forEach(cellPool::acceptCell);
+        presentCells.forEach(this::releaseCell);
+        releaseDetachedCells();
         presentCellsSubscription.unsubscribe();
         cellPool.dispose();
+        if(lowDetailPool != null) {
+            lowDetailPool.dispose();
+        }
     }
 
     /** Gets the list of nodes that the viewport is displaying */
@@ -57,6 +111,82 @@ final class CellListManager<T, C extends Cell<T, ? extends Node>> {
         return cells;
     }
 
+    /**
+     * Emits the index of each present cell that was updated with a new item in place. Such a change of the
+     * items is not reflected in the {@link #getLazyCellList() cell list}, so the size of the cell has to be
+     * recomputed and the viewport laid out again.
+     */
+    public EventStream<Integer> cellsUpdatedInPlace() {
+        return cellsUpdatedInPlace;
+    }
+
+    /**
+     * Emits each item that a change of the items replaces with itself, whether its cell is present or not.
+     * Setting an item again at its own index is how a change of the item is announced, so whatever is known about
+     * its size may be out of date.
+     */
+    public EventStream<T> itemsSetAgain() {
+        return itemsSetAgain;
+    }
+
+    /**
+     * Emits cells that stop displaying their item, i.e. are returned to the pool or disposed. A cell that is
+     * moved along with its item is not emitted.
+     */
+    public EventStream<C> releasedCells() {
+        return releasedCells;
+    }
+
+    /**
+     * Returns the cells of removed items whose item has not been added back since to the pool.
+     * Called once the viewport has been laid out.
+     */
+    public void releaseDetachedCells() {
+        if(!detachedCells.isEmpty()) {
+            List<C> detached = new ArrayList<>(detachedCells.values());
+            detachedCells.clear();
+            detached.forEach(this::releaseCell);
+        }
+    }
+
+    /**
+     * Returns the item that the given cell displays, or null if the cell is neither present nor detached
+     */
+    public T getItemOf(Cell<?, ?> cell) {
+        return cellItems.get(cell);
+    }
+
+    public T getItem(int itemIndex) {
+        return items.get(itemIndex);
+    }
+
+    /**
+     * Returns a cell for the given item that is not part of the cell list, e.g. to measure the item while it is
+     * not displayed. The cell is taken from the same pool as the displayed cells, and has to be given back with
+     * {@link #releaseOffscreenCell(Cell)}.
+     */
+    public C getOffscreenCell(T item) {
+        return cellPool.getCell(item);
+    }
+
+    public void releaseOffscreenCell(C cell) {
+        cellPool.acceptCell(cell);
+    }
+
+    /**
+     * Makes the viewport display cells created by the given factory instead of the regular cells, or the regular
+     * cells again if null. All present cells are released, so the viewport has to be laid out again. Offscreen
+     * cells are always regular cells.
+     */
+    public void setLowDetailCellFactory(Function<? super T, ? extends C> factory) {
+        releaseDetachedCells();
+        cells.forget(0, cells.size());
+        if(lowDetailPool != null) {
+            lowDetailPool.dispose();
+        }
+        lowDetailPool = factory == null ? null : new CellPool<>(factory);
+    }
+
     public boolean isCellPresent(int itemIndex) {
         return cells.isMemoized(itemIndex);
     }
@@ -96,7 +226,29 @@ final class CellListManager<T, C extends Cell<T, ? extends Node>> {
     }
 
     private C cellForItem(T item) {
-        C cell = cellPool.getCell(item);
+        if(reattachedCell != null) {
+            // already set up for, and displaying, this item
+            C cell = reattachedCell;
+            reattachedCell = null;
+            cell.getNode().setVisible(false);
+            return cell;
+        }
+
+        C detached = detachedCells.remove(item);
+        if(detached != null) {
+            // set up for this item, but no longer in the scene
+            detached.getNode().setVisible(false);
+            return detached;
+        }
+
+        C cell;
+        if(lowDetailPool != null) {
+            cell = lowDetailPool.getCell(item);
+            lowDetailCells.add(cell);
+        } else {
+            cell = cellPool.getCell(item);
+        }
+        cellItems.put(cell, item);
 
         // apply CSS when the cell is first added to the scene
         Node node = cell.getNode();
@@ -141,10 +293,22 @@ final class CellListManager<T, C extends Cell<T, ? extends Node>> {
         se.consume();
     }
 
+    private void releaseCell(C cell) {
+        cellItems.remove(cell);
+        releasedCells.push(cell);
+        if(lowDetailCells.remove(cell)) {
+            lowDetailPool.acceptCell(cell);
+        } else {
+            cellPool.acceptCell(cell);
+        }
+    }
+
     private void presentCellsChanged(QuasiListModification<? extends C> mod) {
-        // add removed cells back to the pool
+        // add removed cells back to the pool, unless they are being moved
         for(C cell: mod.getRemoved()) {
-            cellPool.acceptCell(cell);
+            if(!movingCells.contains(cell)) {
+                releaseCell(cell);
+            }
         }
 
         // update indices of added cells and cells after the added cells
@@ -152,4 +316,215 @@ final class CellListManager<T, C extends Cell<T, ? extends Node>> {
             presentCells.get(i).updateIndex(cells.indexOfMemoizedItem(i));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * The items as seen by {@link #cells}. Before passing a change of the items on, it
+     * <ul>
+     *     <li>
+     *         reduces replaced ranges to the items that actually changed, if there is an {@link #itemKey item key}
+     *         (see {@link ItemDiff});
+     *     </li>
+     *     <li>
+     *         finds present cells whose item the change moves (a permutation, or a removal together with an
+     *         addition of the same item) to a position close to the present cells; these cells are put back
+     *         into {@link #cells} at their new position right after the change, instead of going through the pool;
+     *     </li>
+     *     <li>
+     *         holds the other present cells of removed items back as {@link #detachedCells}, so that they are
+     *         reused if their item is added back by a subsequent change;
+     *     </li>
+     *     <li>
+     *         carries out replacements that hit present, reusable cells on those cells right away, and does
+     *         not pass them on, so that the cells keep their place in the viewport.
+     *     </li>
+     * </ul>
+     */
+    private final class ItemList extends LiveListBase<T> implements UnmodifiableByDefaultLiveList<T> {
+
+        @Override
+        public T get(int index) {
+            return items.get(index);
+        }
+
+        @Override
+        public int size() {
+            return items.size();
+        }
+
+        @Override
+        protected Subscription observeInputs() {
+            ListChangeListener<T> listener = this::itemsChanged;
+            items.addListener(listener);
+            return () -> items.removeListener(listener);
+        }
+
+        private void itemsChanged(ListChangeListener.Change<? extends T> ch) {
+            List<QuasiListModification<? extends T>> mods = new ArrayList<>();
+            List<T> setAgain = new ArrayList<>();
+            boolean permutation = false;
+            Function<? super T, ?> key = itemKey.getValue();
+            while(ch.next()) {
+                QuasiListModification<? extends T> mod = QuasiListModification.fromCurrentStateOf(ch);
+                if(ch.wasReplaced()) {
+                    List<? extends T> removed = mod.getRemoved();
+                    for(int i = 0; i < Math.min(removed.size(), ch.getAddedSize()); ++i) {
+                        T item = items.get(ch.getFrom() + i);
+                        if(removed.get(i) == item) {
+                            setAgain.add(item);
+                        }
+                    }
+                }
+                if(key != null && ch.wasReplaced()) {
+                    mods.addAll(ItemDiff.diff(mod.getFrom(), mod.getRemoved(), ch.getAddedSubList(), key));
+                } else {
+                    mods.add(mod);
+                }
+                permutation |= ch.wasPermutated();
+            }
+
+            // before the cells are told, as they may be measured right away
+            setAgain.forEach(itemsSetAgain::push);
+
+            ListChangeAccumulator<T> acc = new ListChangeAccumulator<>();
+            if(presentCells.isEmpty()) {
+                mods.forEach(acc::add);
+                if(!acc.isEmpty()) {
+                    notifyObservers(acc.fetch());
+                }
+                return;
+            }
+
+            // present cells whose position is removed, by the item they display
+            Map<T, C> removedCells = new IdentityHashMap<>();
+            Map<Integer, C> moves = findMoves(mods, permutation, removedCells);
+            movingCells.addAll(moves.values());
+
+            List<Integer> updatedInPlace = new ArrayList<>();
+            // offset of the positions in the changed list against those in the list the cells are built on
+            int shift = 0;
+            for(QuasiListModification<? extends T> mod: mods) {
+                int from = mod.getFrom();
+                int removedSize = mod.getRemovedSize();
+                int addedSize = mod.getAddedSize();
+                if(removedSize > 0 && removedSize == addedSize) {
+                    List<? extends T> removed = mod.getRemoved();
+                    int runStart = from;
+                    for(int i = from; i < from + addedSize; ++i) {
+                        C cell = getPresentCell(i - shift);
+                        if(cell != null && cell.isReusable() && !movingCells.contains(cell) && !moves.containsKey(i)) {
+                            if(runStart < i) {
+                                acc.add(QuasiListModification.create(
+                                        runStart, removed.subList(runStart - from, i - from), i - runStart));
+                            }
+                            runStart = i + 1;
+
+                            cell.reset();
+                            cell.updateItem(items.get(i));
+                            cellItems.put(cell, items.get(i));
+                            updatedInPlace.add(i);
+                            removedCells.values().remove(cell);
+                        }
+                    }
+                    if(runStart < from + addedSize) {
+                        acc.add(QuasiListModification.create(
+                                runStart, removed.subList(runStart - from, addedSize), from + addedSize - runStart));
+                    }
+                } else {
+                    acc.add(mod);
+                }
+                shift += addedSize - removedSize;
+            }
+
+            removedCells.forEach((item, cell) -> {
+                detachedCells.put(item, cell);
+                movingCells.add(cell);
+            });
+
+            if(!acc.isEmpty()) {
+                notifyObservers(acc.fetch());
+            }
+
+            // put moved cells back at the new position of their item
+            moves.forEach((index, cell) -> {
+                reattachedCell = cell;
+                cells.force(index, index + 1);
+                if(reattachedCell != null) {
+                    // position was taken in the meantime
+                    reattachedCell = null;
+                    releaseCell(cell);
+                }
+            });
+            movingCells.clear();
+
+            updatedInPlace.forEach(cellsUpdatedInPlace::push);
+        }
+
+        /**
+         * Finds present cells whose item is added back by the given modifications, at a position between the first
+         * and the last present cell (adjusted by the change of size). Returns the cells by the new position.
+         * Unless the modifications come from a permutation, an item set again at its own position is not
+         * considered moved, as that is how its cell is asked to be updated.
+         *
+         * @param removedCells filled with the present cells whose position is removed, by the item they display,
+         *                     except those of moved items and items set again at their own position
+         */
+        private Map<Integer, C> findMoves(
+                List<QuasiListModification<? extends T>> mods,
+                boolean permutation,
+                Map<T, C> removedCells) {
+            Map<C, Integer> oldIndices = new IdentityHashMap<>();
+            int shift = 0;
+            for(QuasiListModification<? extends T> mod: mods) {
+                int oldFrom = mod.getFrom() - shift;
+                int oldTo = oldFrom + mod.getRemovedSize();
+                for(int k = 0; k < presentCells.size(); ++k) {
+                    int i = cells.indexOfMemoizedItem(k);
+                    if(i >= oldFrom && i < oldTo) {
+                        C cell = presentCells.get(k);
+                        removedCells.put(mod.getRemoved().get(i - oldFrom), cell);
+                        oldIndices.put(cell, i);
+                    }
+                }
+                shift += mod.getAddedSize() - mod.getRemovedSize();
+            }
+            if(removedCells.isEmpty()) {
+                return Collections.emptyMap();
+            }
+
+            // cells that end up far from the present ones are going to be cropped anyway
+            IndexRange presentRange = cells.getMemoizedItemsRange();
+            int start = presentRange.getStart();
+            int end = presentRange.getEnd() + Math.max(shift, 0);
+
+            Map<Integer, C> moves = new HashMap<>();
+            shift = 0;
+            for(QuasiListModification<? extends T> mod: mods) {
+                int from = Math.max(mod.getFrom(), start);
+                int to = Math.min(mod.getFrom() + mod.getAddedSize(), end);
+                for(int i = from; i < to && !removedCells.isEmpty(); ++i) {
+                    C cell = removedCells.remove(items.get(i));
+                    if(cell != null && (permutation || oldIndices.get(cell) != i - shift)) {
+                        moves.put(i, cell);
+                    }
+                }
+                shift += mod.getAddedSize() - mod.getRemovedSize();
+            }
+            return moves;
+        }
+
+        /**
+         * Returns the cell at the given index of {@link #cells} if it is present, or null.
+         * Does not check the index against the size of the items, which may have changed already.
+         */
+        private C getPresentCell(int cellIndex) {
+            if(cells.isMemoized(cellIndex)) {
+                for(int k = 0; k < presentCells.size(); ++k) {
+                    if(cells.indexOfMemoizedItem(k) == cellIndex) {
+                        return presentCells.get(k);
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
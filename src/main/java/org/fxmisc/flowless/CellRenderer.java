@@ -0,0 +1,39 @@
+package org.fxmisc.flowless;
+
+import javafx.scene.Node;
+import javafx.scene.canvas.GraphicsContext;
+
+/**
+ * Draws items on a canvas that is shared by all items of a viewport, instead of displaying each item with a
+ * subtree of nodes, for viewports that display so many items at once that syncing their nodes with the scene
+ * graph is what takes the time. See {@link VirtualFlow#createVerticalRendered(javafx.collections.ObservableList,
+ * CellRenderer)}.
+ *
+ * <p>
+ *     The items are still laid out by the viewport, each by a {@link RenderedCell} whose node has no children,
+ *     and is sized by {@link #lengthOf(Object, double)}. As that does not touch the scene graph, the renderer can
+ *     also be set as the viewport's {@link VirtualFlow#lengthMeasurerProperty() length measurer}.
+ * </p>
+ *
+ * @param <T> the type of the items
+ */
+public interface CellRenderer<T> extends LengthMeasurer<T> {
+
+    /**
+     * Draws the given item. The graphics context is translated to the top left corner of the item's cell and
+     * clipped to its bounds, and it is restored after the call.
+     *
+     * @param index the index of the item
+     * @param width the width of the item's cell
+     * @param height the height of the item's cell
+     */
+    void render(GraphicsContext gc, T item, int index, double width, double height);
+
+    /**
+     * Creates a node to edit the given item, which is displayed in place of the drawn item while its cell is
+     * {@link RenderedCell#startEditing() editing}. Returns null by default, in which case items cannot be edited.
+     */
+    default Node createEditor(T item) {
+        return null;
+    }
+}
@@ -129,6 +129,11 @@ implements Cell<T, N> {
         delegate.updateIndex(index);
     }
 
+    @Override
+    public void updateVisibleRange(double start, double end) {
+        delegate.updateVisibleRange(start, end);
+    }
+
     @Override
     public void reset() {
         delegate.reset();
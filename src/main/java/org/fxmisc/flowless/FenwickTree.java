@@ -0,0 +1,63 @@
+package org.fxmisc.flowless;
+
+/**
+ * A list of non-negative counts that keeps their prefix sums, so that changing a count, summing the counts before
+ * an index and finding the index at which the sum of the counts reaches a value all take O(log n).
+ */
+final class FenwickTree {
+
+    /** {@code tree[i]} is the sum of the counts in {@code (i - lowbit(i), i]}, 1-based */
+    private final int[] tree;
+
+    /** Creates a tree of the given number of counts, each of which is 1 */
+    FenwickTree(int size) {
+        tree = new int[size + 1];
+        for(int i = 1; i <= size; ++i) {
+            tree[i] += 1;
+            int parent = i + (i & -i);
+            if(parent <= size) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    public int size() {
+        return tree.length - 1;
+    }
+
+    public void add(int index, int delta) {
+        for(int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /** Returns the sum of the counts before the given index */
+    public int sumBefore(int index) {
+        int sum = 0;
+        for(int i = index; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    public int total() {
+        return sumBefore(size());
+    }
+
+    /**
+     * Returns the index of the count that spans the given offset, i.e. the greatest index whose
+     * {@link #sumBefore(int) sum before} is not greater than the offset, provided that the offset is less than the
+     * {@link #total() total}
+     */
+    public int indexAt(int offset) {
+        int index = 0;
+        for(int step = Integer.highestOneBit(Math.max(size(), 1)); step > 0; step >>= 1) {
+            int next = index + step;
+            if(next < tree.length && tree[next] <= offset) {
+                index = next;
+                offset -= tree[next];
+            }
+        }
+        return index;
+    }
+}
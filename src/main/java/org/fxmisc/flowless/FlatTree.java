@@ -0,0 +1,239 @@
+package org.fxmisc.flowless;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.function.Function;
+
+import javafx.collections.ObservableListBase;
+
+import org.reactfx.util.Lists;
+
+/**
+ * The visible nodes of a tree, in depth-first order, as a list that a {@link VirtualFlow} can display, e.g.
+ *
+ * <pre><code>
+ * FlatTree&lt;File&gt; tree = new FlatTree&lt;&gt;(root, dir -&gt; listFiles(dir));
+ * VirtualFlow&lt;File, ?&gt; flow = VirtualFlow.createVertical(tree, file -&gt; createCell(file));
+ * </code></pre>
+ *
+ * A node is visible if all of its ancestors are expanded, and the children of a node are only asked for when it is
+ * first expanded; the nodes themselves are only looked at when they are displayed.
+ *
+ * <p>
+ *     Each node keeps the number of visible nodes in its subtree, and the counts of its children in a
+ *     {@link FenwickTree}, so that getting the node at an index, expanding a node and collapsing a node take
+ *     O(log n) per level of the tree rather than time proportional to the number of nodes. Expanding or collapsing a
+ *     node is a single change of the list, adding or removing the nodes of its subtree in one range, whose removed
+ *     nodes are a view that is not copied.
+ * </p>
+ *
+ * <p>
+ *     The children of a node are read once, when it is first expanded; a node keeps its expanded state, and that of
+ *     its descendants, while it is collapsed.
+ * </p>
+ *
+ * @param <T> the type of the nodes
+ */
+public final class FlatTree<T> extends ObservableListBase<T> {
+
+    private final Function<? super T, ? extends List<? extends T>> childrenOf;
+    private final Entry root;
+
+    /**
+     * @param root the root of the tree, which is the first item of the list
+     * @param childrenOf returns the children of a node, or an empty list if it has none
+     */
+    public FlatTree(T root, Function<? super T, ? extends List<? extends T>> childrenOf) {
+        this.childrenOf = childrenOf;
+        this.root = new Entry(root, null, 0);
+    }
+
+    @Override
+    public T get(int index) {
+        return entryAt(index).item;
+    }
+
+    @Override
+    public int size() {
+        return root.visibleCount;
+    }
+
+    /** Returns the depth of the node at the given index, which is 0 for the root */
+    public int getDepth(int index) {
+        int depth = 0;
+        for(Entry e = entryAt(index).parent; e != null; e = e.parent) {
+            ++depth;
+        }
+        return depth;
+    }
+
+    public boolean isExpanded(int index) {
+        return entryAt(index).expanded;
+    }
+
+    /** Whether the node at the given index has no children, which asks for its children if it was never expanded */
+    public boolean isLeaf(int index) {
+        return entryAt(index).children().size() == 0;
+    }
+
+    /** Returns the index of the parent of the node at the given index, or -1 for the root */
+    public int getParentIndex(int index) {
+        Entry parent = entryAt(index).parent;
+        return parent == null ? -1 : indexOf(parent);
+    }
+
+    /** Makes the children of the node at the given index visible, along with the expanded subtrees below them */
+    public void expand(int index) {
+        Entry e = entryAt(index);
+        if(e.expanded) {
+            return;
+        }
+        e.expanded = true;
+        int added = e.children().total();
+        updateCounts(e, added);
+        if(added > 0) {
+            beginChange();
+            nextAdd(index + 1, index + 1 + added);
+            endChange();
+        }
+    }
+
+    /** Hides the descendants of the node at the given index */
+    public void collapse(int index) {
+        Entry e = entryAt(index);
+        if(!e.expanded) {
+            return;
+        }
+        int removed = e.children().total();
+        e.expanded = false;
+        updateCounts(e, -removed);
+        if(removed > 0) {
+            beginChange();
+            nextRemove(index + 1, new Descendants(e, removed));
+            endChange();
+        }
+    }
+
+    public void setExpanded(int index, boolean expanded) {
+        if(expanded) {
+            expand(index);
+        } else {
+            collapse(index);
+        }
+    }
+
+    private Entry entryAt(int index) {
+        Lists.checkIndex(index, size());
+        return index == 0 ? root : descendant(root, index - 1);
+    }
+
+    /**
+     * Returns the entry at the given offset among the visible descendants of the given entry, counted as if the
+     * entry itself were expanded
+     */
+    private Entry descendant(Entry e, int offset) {
+        while(true) {
+            FenwickTree counts = e.children();
+            int i = counts.indexAt(offset);
+            offset -= counts.sumBefore(i);
+            e = e.child(i);
+            if(offset == 0) {
+                return e;
+            }
+            offset -= 1;
+        }
+    }
+
+    private int indexOf(Entry e) {
+        int index = 0;
+        for(; e.parent != null; e = e.parent) {
+            index += 1 + e.parent.children().sumBefore(e.indexInParent);
+        }
+        return index;
+    }
+
+    /**
+     * Adds the given number of visible nodes to the subtree of the given entry and of each of its ancestors, up to
+     * the first collapsed one, whose count does not include its descendants
+     */
+    private void updateCounts(Entry e, int delta) {
+        e.visibleCount += delta;
+        while(e.parent != null) {
+            e.parent.children().add(e.indexInParent, delta);
+            e = e.parent;
+            if(!e.expanded) {
+                break;
+            }
+            e.visibleCount += delta;
+        }
+    }
+
+    /** The nodes that collapsing the given entry removes, which stay where they are in the collapsed subtree */
+    private final class Descendants extends AbstractList<T> {
+        private final Entry ancestor;
+        private final int size;
+
+        Descendants(Entry ancestor, int size) {
+            this.ancestor = ancestor;
+            this.size = size;
+        }
+
+        @Override
+        public T get(int index) {
+            Lists.checkIndex(index, size);
+            return descendant(ancestor, index).item;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private final class Entry {
+        final T item;
+        final Entry parent;
+        final int indexInParent;
+
+        /** The number of visible nodes in the subtree of this entry, itself included */
+        int visibleCount = 1;
+
+        boolean expanded = false;
+
+        /** The children's nodes, or null until they are first asked for */
+        List<? extends T> childItems = null;
+
+        /** The entries of the children, created as they are first visited */
+        Object[] childEntries = null;
+
+        /** The visible counts of the children */
+        FenwickTree childCounts = null;
+
+        Entry(T item, Entry parent, int indexInParent) {
+            this.item = item;
+            this.parent = parent;
+            this.indexInParent = indexInParent;
+        }
+
+        /** Returns the visible counts of the children, asking for the children if they have not been yet */
+        FenwickTree children() {
+            if(childCounts == null) {
+                List<? extends T> items = childrenOf.apply(item);
+                childItems = items == null ? List.of() : items;
+                childEntries = new Object[childItems.size()];
+                childCounts = new FenwickTree(childItems.size());
+            }
+            return childCounts;
+        }
+
+        @SuppressWarnings("unchecked")
+        Entry child(int index) {
+            Entry child = (Entry) childEntries[index];
+            if(child == null) {
+                child = new Entry(childItems.get(index), this, index);
+                childEntries[index] = child;
+            }
+            return child;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.fxmisc.flowless;
+
+/**
+ * The sizes of the rows or of the columns of a {@link VirtualGrid}, of which only those that have been displayed
+ * are known. The size of each other row or column is estimated as the average of the known sizes, the same way
+ * {@link SizeTracker} estimates the lengths of unmeasured items. A known size only ever grows, as more cells of
+ * its row or column are displayed.
+ */
+final class GridAxis {
+
+    private final SizeStore sizes = new SizeStore(false);
+
+    /** The size of a row or column when no size is known */
+    private final double defaultSize;
+
+    GridAxis(double defaultSize) {
+        this.defaultSize = defaultSize;
+    }
+
+    public int count() {
+        return sizes.size();
+    }
+
+    public double estimatedSize() {
+        return sizes.knownCount() == 0 ? defaultSize : sizes.knownSum() / sizes.knownCount();
+    }
+
+    public double sizeOf(int index) {
+        return sizes.isKnown(index) ? sizes.get(index) : estimatedSize();
+    }
+
+    /** Returns the estimated offset of the row or column at the given index from the start of the grid */
+    public double offsetOf(int index) {
+        return sizes.knownSumBefore(index) + (index - sizes.knownCountBefore(index)) * estimatedSize();
+    }
+
+    public double total() {
+        return offsetOf(count());
+    }
+
+    /** Returns the index of the row or column at the given offset, clamped to the existing ones, or -1 if none */
+    public int indexAt(double offset) {
+        int low = 0;
+        int high = count() - 1;
+        while(low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if(offsetOf(mid) <= offset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Makes the size at the given index at least the given size
+     *
+     * @return whether the size changed
+     */
+    public boolean grow(int index, double size) {
+        if(!sizes.isKnown(index) || sizes.get(index) < size) {
+            sizes.set(index, size);
+            return true;
+        }
+        return false;
+    }
+
+    /** Replaces {@code removedSize} rows or columns starting at {@code from} with {@code addedSize} unknown ones */
+    public void replace(int from, int removedSize, int addedSize) {
+        sizes.replace(from, removedSize, addedSize);
+    }
+}
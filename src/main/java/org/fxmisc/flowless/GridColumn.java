@@ -0,0 +1,34 @@
+package org.fxmisc.flowless;
+
+/**
+ * A column of a {@link VirtualGrid}, which creates the cells that display its values of the grid's rows.
+ *
+ * <p>
+ *     Cells that scroll out of view are pooled by {@link #getCellType() cell type}, and reused for any column of
+ *     the same type, so columns that display the same kind of value (e.g. all text columns of a spreadsheet)
+ *     should return the same type, and be able to update each other's cells.
+ * </p>
+ *
+ * @param <R> the type of the rows
+ * @param <C> the type of the cells
+ */
+public interface GridColumn<R, C extends Cell<?, ?>> {
+
+    /** Creates a cell that displays this column's value of the given row */
+    C createCell(R row);
+
+    /**
+     * Makes a {@link Cell#isReusable() reusable} cell that was created by a column of the same
+     * {@link #getCellType() cell type} display this column's value of the given row. {@link Cell#reset()} will have
+     * been called before.
+     */
+    void updateCell(C cell, R row);
+
+    /**
+     * Returns the key under which the cells of this column are pooled. Returns the column itself by default, in
+     * which case its cells are only reused for this column.
+     */
+    default Object getCellType() {
+        return this;
+    }
+}
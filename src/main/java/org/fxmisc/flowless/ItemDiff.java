@@ -0,0 +1,153 @@
+package org.fxmisc.flowless;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.reactfx.collection.QuasiListModification;
+
+/**
+ * Turns the replacement of a range of items into the modifications that make up the shortest edit script between
+ * the removed and the added items (Myers' algorithm), matching items by a key. Items that have the same key and
+ * are {@link Object#equals(Object) equal} are left out of the modifications; items that have the same key but
+ * are not equal are replaced one-for-one, so that their cells can be updated where they are.
+ */
+final class ItemDiff {
+
+    /**
+     * Number of insertions and deletions to look for at most. If the removed and the added items differ by more,
+     * the range between their common prefix and suffix is replaced as a whole.
+     */
+    static final int MAX_EDITS = 1000;
+
+    private ItemDiff() {}
+
+    /**
+     * @param from the index of the replaced range
+     * @param removed the removed items
+     * @param added the items that replace them
+     * @param key the key by which items are matched
+     * @return the modifications, with indices in the list after the replacement
+     */
+    static <T> List<QuasiListModification<? extends T>> diff(
+            int from,
+            List<? extends T> removed,
+            List<? extends T> added,
+            Function<? super T, ?> key) {
+        int n = removed.size();
+        int m = added.size();
+        Object[] a = new Object[n];
+        Object[] b = new Object[m];
+        for(int i = 0; i < n; ++i) {
+            a[i] = key.apply(removed.get(i));
+        }
+        for(int j = 0; j < m; ++j) {
+            b[j] = key.apply(added.get(j));
+        }
+
+        int prefix = 0;
+        while(prefix < n && prefix < m && Objects.equals(a[prefix], b[prefix])) {
+            ++prefix;
+        }
+        int suffix = 0;
+        while(suffix < n - prefix && suffix < m - prefix && Objects.equals(a[n - 1 - suffix], b[m - 1 - suffix])) {
+            ++suffix;
+        }
+
+        // matched[i] is the index of the added item that the removed item i is matched with, or -1
+        int[] matched = new int[n];
+        for(int i = 0; i < n; ++i) {
+            matched[i] = i < prefix ? i
+                    : i >= n - suffix ? i - n + m
+                    : -1;
+        }
+        match(a, b, prefix, n - suffix, prefix, m - suffix, matched);
+
+        List<QuasiListModification<? extends T>> mods = new ArrayList<>();
+        int i0 = 0; // start of the current run of removed items
+        int j0 = 0; // start of the current run of added items
+        for(int i = 0; i < n; ++i) {
+            int j = matched[i];
+            if(j >= 0 && Objects.equals(removed.get(i), added.get(j))) {
+                if(i0 < i || j0 < j) {
+                    mods.add(QuasiListModification.create(from + j0, removed.subList(i0, i), j - j0));
+                }
+                i0 = i + 1;
+                j0 = j + 1;
+            }
+        }
+        if(i0 < n || j0 < m) {
+            mods.add(QuasiListModification.create(from + j0, removed.subList(i0, n), m - j0));
+        }
+        return mods;
+    }
+
+    /**
+     * Finds a longest common subsequence of {@code a[aFrom..aTo)} and {@code b[bFrom..bTo)} and records it in
+     * {@code matched}. Does nothing if the two ranges differ by more than {@link #MAX_EDITS} insertions and
+     * deletions.
+     */
+    private static void match(Object[] a, Object[] b, int aFrom, int aTo, int bFrom, int bTo, int[] matched) {
+        int n = aTo - aFrom;
+        int m = bTo - bFrom;
+        if(n == 0 || m == 0) {
+            return;
+        }
+
+        int maxEdits = Math.min(n + m, MAX_EDITS);
+        int offset = maxEdits + 1;
+        // v[k + offset] is the furthest x reached on diagonal k = x - y
+        int[] v = new int[2 * maxEdits + 3];
+        // trace.get(d)[k + d] is v[k + offset] before step d, for the diagonals -d <= k <= d that it reads
+        List<int[]> trace = new ArrayList<>();
+        int edits = -1;
+        search:
+        for(int d = 0; d <= maxEdits; ++d) {
+            trace.add(Arrays.copyOfRange(v, offset - d, offset + d + 1));
+            for(int k = -d; k <= d; k += 2) {
+                int x = k == -d || (k != d && v[k - 1 + offset] < v[k + 1 + offset])
+                        ? v[k + 1 + offset]
+                        : v[k - 1 + offset] + 1;
+                int y = x - k;
+                while(x < n && y < m && Objects.equals(a[aFrom + x], b[bFrom + y])) {
+                    ++x;
+                    ++y;
+                }
+                v[k + offset] = x;
+                if(x >= n && y >= m) {
+                    edits = d;
+                    break search;
+                }
+            }
+        }
+        if(edits < 0) {
+            return;
+        }
+
+        // walk the edit script back from the end, recording the diagonal moves
+        int x = n;
+        int y = m;
+        for(int d = edits; d > 0; --d) {
+            int[] w = trace.get(d);
+            int k = x - y;
+            int prevK = k == -d || (k != d && w[k - 1 + d] < w[k + 1 + d]) ? k + 1 : k - 1;
+            int prevX = w[prevK + d];
+            int prevY = prevX - prevK;
+            int snakeX = prevK == k + 1 ? prevX : prevX + 1;
+            while(x > snakeX) {
+                --x;
+                --y;
+                matched[aFrom + x] = bFrom + y;
+            }
+            x = prevX;
+            y = prevY;
+        }
+        while(x > 0 && y > 0) {
+            --x;
+            --y;
+            matched[aFrom + x] = bFrom + y;
+        }
+    }
+}
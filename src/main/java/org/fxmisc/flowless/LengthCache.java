@@ -0,0 +1,72 @@
+package org.fxmisc.flowless;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Lengths of cells by size key of their item, for a few recently used breadths, so that e.g. resizing a window back
+ * and forth finds the lengths measured before. Breadths are matched exactly, the way cells are laid out at them, as
+ * a length measured at one breadth may not hold at a slightly different one. Both the breadths and the lengths per
+ * breadth are evicted least recently used first.
+ */
+final class LengthCache {
+
+    /** The maximum number of breadths that lengths are kept for */
+    static final int MAX_BREADTHS = 8;
+
+    /** The maximum number of lengths kept per breadth */
+    static final int MAX_LENGTHS_PER_BREADTH = 10_000;
+
+    private final Map<Double, Map<Object, Double>> lengthsByBreadth = new LruMap<>(MAX_BREADTHS);
+
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Returns the length cached for the given breadth and key, or measures it and caches the result
+     */
+    public double get(double breadth, Object key, Supplier<Double> measure) {
+        Map<Object, Double> lengths = lengthsByBreadth.computeIfAbsent(
+                breadth, b -> new LruMap<>(MAX_LENGTHS_PER_BREADTH));
+        Double length = lengths.get(key);
+        if(length != null) {
+            ++hits;
+            return length;
+        } else {
+            ++misses;
+            length = measure.get();
+            lengths.put(key, length);
+            return length;
+        }
+    }
+
+    /** Removes the lengths of the given key, for all breadths */
+    public void forget(Object key) {
+        for(Map<Object, Double> lengths: lengthsByBreadth.values()) {
+            lengths.remove(key);
+        }
+    }
+
+    /** Returns the ratio of lookups that found a cached length, or NaN if there were no lookups yet */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? Double.NaN : (double) hits / lookups;
+    }
+
+    private static final class LruMap<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        LruMap(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.fxmisc.flowless;
+
+/**
+ * Computes the length of an item's cell without creating the cell, e.g. from font metrics and a line-break
+ * algorithm for items that are plain text. Lengths are computed off the JavaFX application thread, so the measurer
+ * must not touch the scene graph.
+ *
+ * @param <T> the type of the items
+ * @see VirtualFlow#lengthMeasurerProperty()
+ */
+@FunctionalInterface
+public interface LengthMeasurer<T> {
+
+    /**
+     * Returns the length that the cell of the given item has when it is laid out at the given breadth: its
+     * height in a vertical viewport, or its width in a horizontal one.
+     */
+    double lengthOf(T item, double breadth);
+
+    /**
+     * Whether {@link #lengthOf(Object, double)} may be called from several threads at once, in which case the
+     * items are measured on all cores. If not (the default), they are measured on one background thread.
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
+}
@@ -2,9 +2,11 @@ package org.fxmisc.flowless;
 
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.function.Predicate;
 
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.ObjectProperty;
+import javafx.scene.Group;
 import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.layout.Region;
@@ -23,6 +25,12 @@ import org.reactfx.collection.QuasiListModification;
  * are reached or there are no other cells' nodes to render. In this latter case (when there is not enough content to
  * fill up the entire viewport), the displayed cells are repositioned towards the "ground," based on the
  * {@link VirtualFlow}'s {@link Gravity} value, and any remaining unused space counts as the "sky."
+ *
+ * <p>
+ *     If the items are grouped into sections, the navigator also pins the header of the section of the first
+ *     visible item at the start of the viewport, with a cell of its own that is laid out in the
+ *     {@link #getStickyHeaderPane() sticky header pane}.
+ * </p>
  */
 final class Navigator<T, C extends Cell<T, ?>>
 extends Region implements TargetPositionVisitor {
@@ -32,8 +40,22 @@ extends Region implements TargetPositionVisitor {
     private final OrientationHelper orientation;
     private final ObjectProperty<Gravity> gravity;
     private final SizeTracker sizeTracker;
+    private final ObjectProperty<Predicate<? super T>> sectionStart;
     private final Subscription itemsSubscription;
 
+    private final Group stickyHeaderPane = new Group();
+
+    /** The cell that displays the pinned section header, or null if no header is pinned */
+    private C stickyHeader = null;
+    private T stickyHeaderItem = null;
+
+    /**
+     * The item index that {@link #cachedSectionStart} was looked up for, or -1 if it is out of date, so that
+     * scrolling only looks at the items between the previous first visible item and the new one
+     */
+    private int sectionStartCachedFor = -1;
+    private int cachedSectionStart = -1;
+
     private TargetPosition currentPosition = TargetPosition.BEGINNING;
     private TargetPosition targetPosition = TargetPosition.BEGINNING;
     private int firstVisibleIndex = -1;
@@ -44,23 +66,48 @@ extends Region implements TargetPositionVisitor {
             CellPositioner<T, C> positioner,
             OrientationHelper orientation,
             ObjectProperty<Gravity> gravity,
-            SizeTracker sizeTracker) {
+            SizeTracker sizeTracker,
+            ObjectProperty<Predicate<? super T>> sectionStart) {
         this.cellListManager = cellListManager;
         this.cells = cellListManager.getLazyCellList();
         this.positioner = positioner;
         this.orientation = orientation;
         this.gravity = gravity;
         this.sizeTracker = sizeTracker;
+        this.sectionStart = sectionStart;
 
-        this.itemsSubscription = LiveList.observeQuasiChanges(cellListManager.getLazyCellList(), this::itemsChanged);
+        this.itemsSubscription = LiveList.observeQuasiChanges(cellListManager.getLazyCellList(), this::itemsChanged)
+                .and(cellListManager.cellsUpdatedInPlace().subscribe(this::cellUpdatedInPlace));
         Bindings.bindContent(getChildren(), cellListManager.getNodes());
         // When gravity changes, we must redo our layout:
         gravity.addListener((prop, oldVal, newVal) -> requestLayout());
+
+        stickyHeaderPane.getStyleClass().add("sticky-header-pane");
+        stickyHeaderPane.setManaged(false);
+        stickyHeaderPane.setAutoSizeChildren(false);
+        sectionStart.addListener((obs, oldStart, newStart) -> {
+            sectionStartCachedFor = -1;
+            requestLayout();
+        });
     }
 
     public void dispose() {
         itemsSubscription.unsubscribe();
         Bindings.unbindContent(getChildren(), cellListManager.getNodes());
+        releaseStickyHeader();
+    }
+
+    /**
+     * The pane in which the pinned section header is laid out, in the coordinates of the navigator, to be put on
+     * top of the navigator by its owner
+     */
+    public Node getStickyHeaderPane() {
+        return stickyHeaderPane;
+    }
+
+    /** The cell of the pinned section header, or null if no header is pinned */
+    public C getStickyHeader() {
+        return stickyHeader;
     }
 
     @Override
@@ -70,7 +117,8 @@ extends Region implements TargetPositionVisitor {
         for(int i = 0; i < n; ++i) {
             int j = cells.indexOfMemoizedItem(i);
             Node node = cells.get(j).getNode();
-            if(node instanceof Parent && ((Parent) node).isNeedsLayout()) {
+            // the sizes of low-detail cells are not those of their items
+            if(!sizeTracker.isLowDetail() && node instanceof Parent && ((Parent) node).isNeedsLayout()) {
                 sizeTracker.forgetSizeOf(j);
             }
         }
@@ -81,6 +129,12 @@ extends Region implements TargetPositionVisitor {
         }
         currentPosition = getCurrentPosition();
         targetPosition = currentPosition;
+        updateVisibleRanges();
+        layoutStickyHeader();
+
+        // cells of removed items that were not added back are not needed anymore
+        cellListManager.releaseDetachedCells();
+        sizeTracker.cellsLaidOut();
     }
 
     /**
@@ -113,7 +167,108 @@ extends Region implements TargetPositionVisitor {
         }
     }
 
+    /** Tells each visible cell which part of it is in view */
+    private void updateVisibleRanges() {
+        if(cells.isEmpty() || firstVisibleIndex < 0) {
+            return;
+        }
+        double viewportLength = sizeTracker.getViewportLength();
+        for(int i = firstVisibleIndex; i <= lastVisibleIndex; ++i) {
+            C cell = positioner.getVisibleCell(i);
+            double start = orientation.minY(cell);
+            double length = orientation.length(cell);
+            cell.updateVisibleRange(
+                    Math.max(0.0, -start),
+                    Math.max(0.0, Math.min(length, viewportLength - start)));
+        }
+    }
+
+    /**
+     * Pins the header of the section of the first visible item at the start of the viewport, unless that header
+     * starts there itself, and lets the header of the next section push it out as it scrolls into its place
+     */
+    private void layoutStickyHeader() {
+        Predicate<? super T> isSectionStart = sectionStart.get();
+        int header = isSectionStart == null || cells.isEmpty() || firstVisibleIndex < 0
+                ? -1
+                : sectionStartOf(firstVisibleIndex, isSectionStart);
+        if(header < 0
+                || header == firstVisibleIndex && orientation.minY(positioner.getVisibleCell(header)) >= 0.0) {
+            releaseStickyHeader();
+            return;
+        }
+
+        // the header cell is taken from the cell pool, so a reusable one is just updated with the next header
+        T item = cellListManager.getItem(header);
+        if(stickyHeader == null || stickyHeaderItem != item) {
+            releaseStickyHeader();
+            stickyHeader = cellListManager.getOffscreenCell(item);
+            stickyHeaderItem = item;
+            stickyHeaderPane.getChildren().setAll(stickyHeader.getNode());
+            stickyHeader.getNode().applyCss();
+        }
+        stickyHeader.updateIndex(header);
+
+        // the header's length is only measured if the header item has not been displayed at this breadth
+        double breadth = sizeTracker.getCellLayoutBreadth();
+        double length = sizeTracker.knownLengthOf(header);
+        if(Double.isNaN(length)) {
+            length = orientation.prefLength(stickyHeader, breadth);
+        }
+
+        double offset = 0.0;
+        for(int i = firstVisibleIndex + 1; i <= lastVisibleIndex; ++i) {
+            double start = orientation.minY(positioner.getVisibleCell(i));
+            if(start >= length) {
+                break;
+            } else if(isSectionStart.test(cellListManager.getItem(i))) {
+                offset = start - length;
+                break;
+            }
+        }
+        orientation.resizeRelocate(stickyHeader.getNode(), 0.0, offset, breadth, length);
+    }
+
+    /** Returns the index of the item that starts the section of the given item, or -1 if none does */
+    private int sectionStartOf(int itemIndex, Predicate<? super T> isSectionStart) {
+        int start;
+        if(sectionStartCachedFor >= 0 && itemIndex >= sectionStartCachedFor) {
+            start = lastSectionStart(itemIndex, sectionStartCachedFor + 1, isSectionStart);
+            if(start < 0) {
+                start = cachedSectionStart;
+            }
+        } else if(sectionStartCachedFor >= 0 && cachedSectionStart <= itemIndex) {
+            // no section starts between the cached start and the item the cache was for
+            start = cachedSectionStart;
+        } else {
+            start = lastSectionStart(itemIndex, 0, isSectionStart);
+        }
+        sectionStartCachedFor = itemIndex;
+        cachedSectionStart = start;
+        return start;
+    }
+
+    /** Returns the index of the last item in {@code [from, to]} that starts a section, or -1 if none does */
+    private int lastSectionStart(int to, int from, Predicate<? super T> isSectionStart) {
+        for(int i = to; i >= from; --i) {
+            if(isSectionStart.test(cellListManager.getItem(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void releaseStickyHeader() {
+        if(stickyHeader != null) {
+            stickyHeaderPane.getChildren().clear();
+            cellListManager.releaseOffscreenCell(stickyHeader);
+            stickyHeader = null;
+            stickyHeaderItem = null;
+        }
+    }
+
     private void itemsChanged(QuasiListChange<?> ch) {
+        sectionStartCachedFor = -1;
         for(QuasiListModification<?> mod: ch) {
             targetPosition = targetPosition.transformByChange(
                     mod.getFrom(), mod.getRemovedSize(), mod.getAddedSize());
@@ -123,6 +278,13 @@ extends Region implements TargetPositionVisitor {
                          // are affected
     }
 
+    private void cellUpdatedInPlace(int itemIndex) {
+        // the cell stays where it is, only its size, its category and whether it starts a section may have changed
+        sectionStartCachedFor = -1;
+        sizeTracker.itemUpdatedInPlace(itemIndex);
+        requestLayout();
+    }
+
     void showLengthRegion(int itemIndex, double fromY, double toY) {
         setTargetPosition(new MinDistanceTo(
                 itemIndex, Offset.fromStart(fromY), Offset.fromStart(toY)));
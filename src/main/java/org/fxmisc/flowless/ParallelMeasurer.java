@@ -0,0 +1,196 @@
+package org.fxmisc.flowless;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import javafx.application.Platform;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.ObservableList;
+
+import org.reactfx.Subscription;
+import org.reactfx.value.Val;
+
+/**
+ * Computes the lengths of all items whose length is not known with a {@link LengthMeasurer}, on the common
+ * {@link ForkJoinPool}, and merges them into {@link SizeTracker} on the JavaFX application thread.
+ *
+ * <p>
+ *     Each run is a job over the ranges of items whose length is unknown at the time, with a snapshot of those
+ *     items. When the items or the breadth at which lengths are measured change, the job is cancelled, the results
+ *     it still delivers are dropped, and a new job is started for the ranges that are unknown then, which, after a
+ *     change of the items, are just the changed ranges and the ones the previous job had not got to.
+ * </p>
+ *
+ * <p>
+ *     If the measurer throws, the exception is passed to the uncaught exception handler of the thread, the job is
+ *     given up, and the next check starts a new one. Lengths of items that are forgotten while a job runs, e.g.
+ *     because the item's cell was updated in place, are left out of its results.
+ * </p>
+ */
+final class ParallelMeasurer<T> {
+
+    /** The number of items that are measured and merged together */
+    static final int CHUNK_SIZE = 4096;
+
+    private final ObservableList<T> items;
+    private final SizeTracker sizeTracker;
+    private final ObservableValue<? extends LengthMeasurer<? super T>> measurer;
+
+    private Job job = null;
+    private boolean checkPending = false;
+
+    private final Subscription subscription;
+
+    ParallelMeasurer(
+            ObservableList<T> items,
+            SizeTracker sizeTracker,
+            ObservableValue<? extends LengthMeasurer<? super T>> measurer) {
+        this.items = items;
+        this.sizeTracker = sizeTracker;
+        this.measurer = measurer;
+
+        this.subscription = Subscription.multi(
+                Val.observeInvalidations(measurer, obs -> requestCheck()),
+                sizeTracker.observeLengthChanges(this::requestCheck));
+    }
+
+    public void dispose() {
+        subscription.unsubscribe();
+        cancel();
+    }
+
+    private void requestCheck() {
+        if(!checkPending && (measurer.getValue() != null || job != null)) {
+            checkPending = true;
+            Platform.runLater(this::check);
+        }
+    }
+
+    private void cancel() {
+        if(job != null) {
+            job.cancelled = true;
+            job = null;
+        }
+    }
+
+    /** Lets the next check start a new job in place of the given one, which failed */
+    private void failed(Job failedJob) {
+        if(job == failedJob) {
+            job = null;
+        }
+    }
+
+    /** Starts a job if there are unknown lengths that the current job, if any, does not compute */
+    private void check() {
+        checkPending = false;
+        LengthMeasurer<? super T> m = measurer.getValue();
+        if(m == null) {
+            cancel();
+            return;
+        }
+
+        if(sizeTracker.measuredLengthFractionProperty().getValue() >= 1.0) {
+            return;
+        }
+        double breadth = sizeTracker.getSettledLengthBreadth();
+        long generation = sizeTracker.getLengthsGeneration();
+        if(Double.isNaN(breadth)
+                || job != null && job.measurer == m && job.generation == generation) {
+            return;
+        }
+
+        cancel();
+        job = new Job(m, breadth, generation, sizeTracker.getForgetCount());
+        int from = sizeTracker.nextUnknownLength(0);
+        while(from >= 0) {
+            int to = sizeTracker.nextKnownLength(from);
+            if(to < 0) {
+                to = items.size();
+            }
+            job.ranges.add(new Range(from, new ArrayList<>(items.subList(from, to))));
+            from = sizeTracker.nextUnknownLength(to);
+        }
+        ForkJoinPool.commonPool().execute(job);
+    }
+
+    /** A range of items whose lengths are unknown, with a snapshot of the items */
+    private final class Range {
+        final int from;
+        final List<T> items;
+
+        Range(int from, List<T> items) {
+            this.from = from;
+            this.items = items;
+        }
+    }
+
+    private final class Job extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final LengthMeasurer<? super T> measurer;
+        final double breadth;
+        final long generation;
+        final long forgetCount;
+        final List<Range> ranges = new ArrayList<>();
+        volatile boolean cancelled = false;
+
+        Job(LengthMeasurer<? super T> measurer, double breadth, long generation, long forgetCount) {
+            this.measurer = measurer;
+            this.breadth = breadth;
+            this.generation = generation;
+            this.forgetCount = forgetCount;
+        }
+
+        @Override
+        protected void compute() {
+            List<RecursiveAction> chunks = new ArrayList<>();
+            for(Range range: ranges) {
+                for(int i = 0; i < range.items.size(); i += CHUNK_SIZE) {
+                    int from = i;
+                    int to = Math.min(i + CHUNK_SIZE, range.items.size());
+                    chunks.add(new RecursiveAction() {
+                        private static final long serialVersionUID = 1L;
+
+                        @Override
+                        protected void compute() {
+                            measure(range, from, to);
+                        }
+                    });
+                }
+            }
+            // the snapshots are only needed until the chunks are done
+            ranges.clear();
+            if(measurer.isThreadSafe()) {
+                invokeAll(chunks);
+            } else {
+                chunks.forEach(RecursiveAction::invoke);
+            }
+        }
+
+        private void measure(Range range, int from, int to) {
+            if(cancelled) {
+                return;
+            }
+            double[] lengths = new double[to - from];
+            try {
+                for(int i = from; i < to; ++i) {
+                    lengths[i - from] = measurer.lengthOf(range.items.get(i), breadth);
+                }
+            } catch(RuntimeException e) {
+                // the pool does not report what its tasks throw
+                cancelled = true;
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                Platform.runLater(() -> failed(this));
+                return;
+            }
+            Platform.runLater(() -> {
+                if(!cancelled) {
+                    sizeTracker.mergeLengths(generation, forgetCount, range.from + from, lengths);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.fxmisc.flowless;
+
+import javafx.scene.Node;
+import javafx.scene.layout.Region;
+
+/**
+ * The cell of an item that is drawn by a {@link CellRenderer} rather than displayed with nodes. Its node has no
+ * children, and only gives the item its place in the viewport, except while the cell is {@link #startEditing()
+ * editing}, when the node displays the editor that the renderer creates for the item.
+ *
+ * @param <T> the type of the items
+ */
+public final class RenderedCell<T> implements Cell<T, Region> {
+
+    private final CellRenderer<? super T> renderer;
+    private final Runnable repaint;
+    private final Placeholder node;
+
+    private T item;
+    private int index = -1;
+    private boolean editing = false;
+
+    /**
+     * @param vertical whether the cell is laid out in a vertical viewport, where its length is its height
+     * @param repaint makes the viewport's items be drawn again
+     */
+    RenderedCell(T item, CellRenderer<? super T> renderer, boolean vertical, Runnable repaint) {
+        this.item = item;
+        this.renderer = renderer;
+        this.repaint = repaint;
+        this.node = new Placeholder(vertical);
+    }
+
+    @Override
+    public Region getNode() {
+        return node;
+    }
+
+    public T getItem() {
+        return item;
+    }
+
+    /** Returns the index of the item, or -1 if it is not known yet */
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public boolean isReusable() {
+        return true;
+    }
+
+    @Override
+    public void updateItem(T item) {
+        stopEditing();
+        this.item = item;
+        node.requestLayout();
+    }
+
+    @Override
+    public void updateIndex(int index) {
+        this.index = index;
+    }
+
+    @Override
+    public void reset() {
+        stopEditing();
+    }
+
+    /** Whether the cell displays an editor instead of being drawn */
+    public boolean isEditing() {
+        return editing;
+    }
+
+    /**
+     * Displays the editor that the renderer creates for the item, until {@link #stopEditing()} is called or the
+     * cell stops displaying the item, e.g. when it is scrolled out of view.
+     *
+     * @return whether the renderer created an editor
+     */
+    public boolean startEditing() {
+        if(!editing) {
+            Node editor = renderer.createEditor(item);
+            if(editor == null) {
+                return false;
+            }
+            node.setEditor(editor);
+            editing = true;
+            repaint.run();
+        }
+        return true;
+    }
+
+    public void stopEditing() {
+        if(editing) {
+            node.setEditor(null);
+            editing = false;
+            repaint.run();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RenderedCell(" + item + ")";
+    }
+
+    private final class Placeholder extends Region {
+        private final boolean vertical;
+
+        Placeholder(boolean vertical) {
+            this.vertical = vertical;
+        }
+
+        @Override
+        protected double computePrefWidth(double height) {
+            return vertical ? 0.0 : renderer.lengthOf(item, height);
+        }
+
+        @Override
+        protected double computePrefHeight(double width) {
+            return vertical ? renderer.lengthOf(item, width) : 0.0;
+        }
+
+        void setEditor(Node editor) {
+            if(editor == null) {
+                getChildren().clear();
+            } else {
+                getChildren().setAll(editor);
+            }
+        }
+
+        @Override
+        protected void layoutChildren() {
+            for(Node child: getChildren()) {
+                child.resizeRelocate(0, 0, getWidth(), getHeight());
+            }
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package org.fxmisc.flowless;
 
+import javafx.geometry.Orientation;
+import javafx.geometry.Rectangle2D;
 import javafx.scene.Node;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.ImageView;
 import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
 import javafx.scene.transform.Scale;
 import org.reactfx.value.Val;
 import org.reactfx.value.Var;
@@ -22,12 +27,28 @@ import org.reactfx.value.Var;
  *     }
  * </pre>
  *
+ * <p>
+ *     Each change of the zoom resizes the content, which then lays out and possibly creates its cells anew. While
+ *     the zoom changes many times in a row, as in a pinch gesture, this can be avoided by showing a scaled snapshot
+ *     of the content instead:
+ * </p>
+ * <pre>
+ *     {@code
+ *     wrapper.setOnZoomStarted(e -> wrapper.beginZoomGesture());
+ *     wrapper.setOnZoom(e -> wrapper.getZoom().setY(wrapper.getZoom().getY() * e.getZoomFactor()));
+ *     wrapper.setOnZoomFinished(e -> wrapper.endZoomGesture());
+ *     }
+ * </pre>
+ *
  * @param <V> the {@link Virtualized} content to be scaled when inside a {@link VirtualizedScrollPane}
  */
 public class ScaledVirtualized<V extends Node & Virtualized> extends Region implements Virtualized {
     private final V content;
     private Scale zoom = new Scale();
 
+    /** The snapshot of the content that is shown during a zoom gesture, or null if there is no gesture */
+    private ImageView gesturePreview = null;
+
     private Val<Double> estHeight;
     private Val<Double> estWidth;
     private Var<Double> estScrollX;
@@ -66,15 +87,77 @@ public class ScaledVirtualized<V extends Node & Virtualized> extends Region impl
         zoom.pivotXProperty().addListener((obs, ov, nv) -> requestLayout());
         zoom.pivotYProperty().addListener((obs, ov, nv) -> requestLayout());
         zoom.pivotZProperty().addListener((obs, ov, nv) -> requestLayout());
+
+        zoom.xProperty().addListener(obs -> updateEffectiveScale());
+        zoom.yProperty().addListener(obs -> updateEffectiveScale());
+        updateEffectiveScale();
+    }
+
+    /**
+     * Passes the zoom along the length of a {@link VirtualFlow} content on as its
+     * {@link VirtualFlow#effectiveScaleProperty() effective scale}, except during a zoom gesture
+     */
+    private void updateEffectiveScale() {
+        if (content instanceof VirtualFlow && gesturePreview == null) {
+            VirtualFlow<?, ?> flow = (VirtualFlow<?, ?>) content;
+            boolean vertical = flow.getContentBias() == Orientation.HORIZONTAL;
+            flow.setEffectiveScale(vertical ? zoom.getY() : zoom.getX());
+        }
     }
 
     @Override
     protected void layoutChildren() {
+        if (gesturePreview != null) {
+            // the snapshot is scaled along with this node, the content is resized when the gesture ends
+            return;
+        }
         double width = getLayoutBounds().getWidth();
         double height = getLayoutBounds().getHeight();
         content.resize(width / zoom.getX(), height/ zoom.getY());
     }
 
+    /**
+     * Starts a zoom gesture: until {@link #endZoomGesture()}, the content is replaced by a snapshot of it, which is
+     * scaled as the zoom changes, and the content is neither resized nor laid out.
+     * Does nothing if a gesture is already in progress.
+     */
+    public void beginZoomGesture() {
+        if (gesturePreview != null) {
+            return;
+        }
+        Rectangle2D viewport = new Rectangle2D(0, 0, content.getLayoutBounds().getWidth(),
+                content.getLayoutBounds().getHeight());
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        params.setViewport(viewport);
+        gesturePreview = new ImageView(content.snapshot(params, null));
+        gesturePreview.setManaged(false);
+        gesturePreview.setFitWidth(viewport.getWidth());
+        gesturePreview.setFitHeight(viewport.getHeight());
+        content.setVisible(false);
+        getChildren().add(gesturePreview);
+    }
+
+    /**
+     * Ends a zoom gesture started by {@link #beginZoomGesture()}: the snapshot is removed and the content is laid out
+     * once, at the zoom at that point. Does nothing if no gesture is in progress.
+     */
+    public void endZoomGesture() {
+        if (gesturePreview == null) {
+            return;
+        }
+        getChildren().remove(gesturePreview);
+        gesturePreview = null;
+        content.setVisible(true);
+        updateEffectiveScale();
+        requestLayout();
+    }
+
+    /** Whether a zoom gesture is in progress, during which a snapshot of the content is shown */
+    public boolean isZoomGestureActive() {
+        return gesturePreview != null;
+    }
+
     @Override
     public Var<Double> estimatedScrollXProperty() {
         return estScrollX;
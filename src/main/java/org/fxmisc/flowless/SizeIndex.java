@@ -0,0 +1,185 @@
+package org.fxmisc.flowless;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * A file that keeps the measured lengths of a {@link VirtualFlow}'s items and its scroll position, so that a
+ * document that is opened again is shown where it was left, with exact scroll bars, without measuring its items
+ * first. See {@link VirtualFlow#saveTo(SizeIndex)} and {@link VirtualFlow#restoreFrom(SizeIndex)}.
+ *
+ * <p>
+ *     The file is memory-mapped, and the lengths are stored as {@code float}s, NaN for a length that is not known.
+ *     What it holds is tied to a document id given by the caller, which should change whenever the document
+ *     changes (e.g. a path and a modification time): a file that was saved for another id is treated as empty.
+ * </p>
+ *
+ * <p>
+ *     A file is never truncated, as a mapping of it is only released once it is garbage collected, and a file that
+ *     is mapped cannot be truncated on some platforms. What follows the lengths of the saved items is ignored.
+ * </p>
+ */
+public final class SizeIndex implements Closeable {
+
+    private static final int MAGIC = 0x464c5849;
+    private static final int FORMAT_VERSION = 1;
+
+    static final int HEADER_SIZE = 512;
+
+    /** The number of bytes of a document id in UTF-8 at most */
+    public static final int MAX_ID_BYTES = HEADER_SIZE - 64;
+
+    /** The number of items an index can hold at most */
+    public static final int MAX_ITEMS = (Integer.MAX_VALUE - HEADER_SIZE) / Float.BYTES;
+
+    // header layout
+    private static final int MAGIC_AT = 0;
+    private static final int VERSION_AT = 4;
+    private static final int ITEM_COUNT_AT = 8;
+    private static final int BREADTH_AT = 12;
+    private static final int FIRST_ITEM_AT = 20;
+    private static final int FIRST_OFFSET_AT = 24;
+    private static final int ID_LENGTH_AT = 32;
+    private static final int ID_AT = 36;
+
+    /**
+     * Opens the index in the given file, creating the file if it does not exist
+     *
+     * @param documentId identifies the document, and the version of it, that the index is for
+     */
+    public static SizeIndex open(Path file, String documentId) throws IOException {
+        byte[] id = documentId.getBytes(StandardCharsets.UTF_8);
+        if(id.length > MAX_ID_BYTES) {
+            throw new IllegalArgumentException("document id longer than " + MAX_ID_BYTES + " bytes: " + documentId);
+        }
+        FileChannel channel = FileChannel.open(
+                file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new SizeIndex(channel, id);
+        } catch(IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private final FileChannel channel;
+    private final byte[] documentId;
+
+    /** Null as long as nothing is saved for the document */
+    private MappedByteBuffer buffer = null;
+
+    private SizeIndex(FileChannel channel, byte[] documentId) throws IOException {
+        this.channel = channel;
+        this.documentId = documentId;
+
+        // only the lengths of an index for the document are mapped
+        long size = channel.size();
+        if(size >= HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            int read;
+            do {
+                read = channel.read(header, header.position());
+            } while(read > 0 && header.hasRemaining());
+            if(isFor(header, documentId)) {
+                long used = HEADER_SIZE + (long) header.getInt(ITEM_COUNT_AT) * Float.BYTES;
+                if(size >= used && used <= Integer.MAX_VALUE) {
+                    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, used);
+                }
+            }
+        }
+    }
+
+    private static boolean isFor(ByteBuffer b, byte[] documentId) {
+        if(b.getInt(MAGIC_AT) != MAGIC || b.getInt(VERSION_AT) != FORMAT_VERSION
+                || b.getInt(ID_LENGTH_AT) != documentId.length || b.getInt(ITEM_COUNT_AT) < 0) {
+            return false;
+        }
+        byte[] id = new byte[documentId.length];
+        for(int i = 0; i < id.length; ++i) {
+            id[i] = b.get(ID_AT + i);
+        }
+        return Arrays.equals(id, documentId);
+    }
+
+    public String getDocumentId() {
+        return new String(documentId, StandardCharsets.UTF_8);
+    }
+
+    /** Whether nothing has been saved for the document yet */
+    public boolean isEmpty() {
+        return buffer == null;
+    }
+
+    /** Returns the number of items that the lengths were saved for, or -1 if the index is empty */
+    public int getItemCount() {
+        return buffer == null ? -1 : buffer.getInt(ITEM_COUNT_AT);
+    }
+
+    /** Returns the breadth at which the lengths were measured, or NaN if the index is empty */
+    public double getBreadth() {
+        return buffer == null ? Double.NaN : buffer.getDouble(BREADTH_AT);
+    }
+
+    /** Returns the index of the item that was the first visible one, or -1 if the index is empty */
+    int getFirstVisibleItem() {
+        return buffer == null ? -1 : buffer.getInt(FIRST_ITEM_AT);
+    }
+
+    /** Returns the offset of the first visible item from the start of the viewport */
+    double getFirstVisibleOffset() {
+        return buffer == null ? 0.0 : buffer.getDouble(FIRST_OFFSET_AT);
+    }
+
+    /** Returns the saved length of the given item, or NaN if it is not known */
+    double lengthOf(int itemIndex) {
+        return buffer.getFloat(HEADER_SIZE + itemIndex * Float.BYTES);
+    }
+
+    /**
+     * Replaces the contents of the index
+     *
+     * @param lengthOf returns the length of the item at an index, or NaN if it is not known
+     */
+    void save(
+            int itemCount, double breadth, int firstVisibleItem, double firstVisibleOffset,
+            IntToDoubleFunction lengthOf) throws IOException {
+        if(itemCount > MAX_ITEMS) {
+            throw new IllegalArgumentException("more than " + MAX_ITEMS + " items: " + itemCount);
+        }
+        long size = HEADER_SIZE + (long) itemCount * Float.BYTES;
+        buffer = null;
+        MappedByteBuffer b = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+        // invalidate the header while the lengths are written
+        b.putInt(MAGIC_AT, 0);
+        for(int i = 0; i < itemCount; ++i) {
+            b.putFloat(HEADER_SIZE + i * Float.BYTES, (float) lengthOf.applyAsDouble(i));
+        }
+        b.putInt(VERSION_AT, FORMAT_VERSION);
+        b.putInt(ITEM_COUNT_AT, itemCount);
+        b.putDouble(BREADTH_AT, breadth);
+        b.putInt(FIRST_ITEM_AT, firstVisibleItem);
+        b.putDouble(FIRST_OFFSET_AT, firstVisibleOffset);
+        b.putInt(ID_LENGTH_AT, documentId.length);
+        for(int i = 0; i < documentId.length; ++i) {
+            b.put(ID_AT + i, documentId[i]);
+        }
+        b.putInt(MAGIC_AT, MAGIC);
+        b.force();
+        buffer = b;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,155 @@
+package org.fxmisc.flowless;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import org.reactfx.Subscription;
+
+/**
+ * Loads the lengths saved in a {@link SizeIndex} into {@link SizeTracker}, once the breadth at which the viewport
+ * measures lengths is known and if it is the one the lengths were saved for. The lengths are loaded in chunks,
+ * one per pulse, and loading stops as soon as the breadth changes.
+ *
+ * <p>
+ *     The items whose lengths are still to be loaded are kept as ranges of saved items and where they are now.
+ *     A change of the items moves the ranges after it and drops the items it removes or replaces, so that the
+ *     lengths of the other items are still loaded.
+ * </p>
+ */
+final class SizeIndexLoader {
+
+    /** The number of lengths loaded per pulse */
+    static final int CHUNK_SIZE = 65536;
+
+    private final SizeIndex index;
+    private final ObservableList<?> items;
+    private final SizeTracker sizeTracker;
+
+    private final ListChangeListener<Object> itemsListener = this::itemsChanged;
+
+    private Subscription waiting;
+    private boolean stopped = false;
+
+    /** The breadth at which the lengths are loaded */
+    private double breadth;
+
+    /** The saved items whose lengths are yet to be loaded, in order */
+    private final List<Range> ranges = new ArrayList<>();
+
+    SizeIndexLoader(SizeIndex index, ObservableList<?> items, SizeTracker sizeTracker) {
+        this.index = index;
+        this.items = items;
+        this.sizeTracker = sizeTracker;
+
+        ranges.add(new Range(0, 0, index.getItemCount()));
+        items.addListener(itemsListener);
+
+        // the breadth may become known whenever the estimates change, e.g. when the viewport is laid out
+        this.waiting = sizeTracker.observeLengthChanges(this::check);
+    }
+
+    public void stop() {
+        stopped = true;
+        waiting.unsubscribe();
+        items.removeListener(itemsListener);
+        ranges.clear();
+    }
+
+    private void check() {
+        if(stopped) {
+            return;
+        }
+
+        double breadth = sizeTracker.getSettledLengthBreadth();
+        if(Double.isNaN(breadth)) {
+            return;
+        }
+
+        waiting.unsubscribe();
+        if(Math.round(breadth) == Math.round(index.getBreadth())) {
+            this.breadth = breadth;
+            loadChunk();
+        } else {
+            stop();
+        }
+    }
+
+    private void loadChunk() {
+        if(stopped) {
+            return;
+        } else if(ranges.isEmpty() || index.isEmpty() || sizeTracker.getSettledLengthBreadth() != breadth) {
+            // done, the index was closed, or the lengths loaded so far were forgotten along with the breadth
+            stop();
+            return;
+        }
+
+        Range range = ranges.get(0);
+        int n = Math.min(range.size, CHUNK_SIZE);
+        double[] lengths = new double[n];
+        for(int i = 0; i < n; ++i) {
+            lengths[i] = index.lengthOf(range.savedFrom + i);
+        }
+        sizeTracker.mergeLengths(
+                sizeTracker.getLengthsGeneration(), sizeTracker.getForgetCount(), range.from, lengths);
+        range.savedFrom += n;
+        range.from += n;
+        range.size -= n;
+        if(range.size == 0) {
+            ranges.remove(0);
+        }
+        Platform.runLater(this::loadChunk);
+    }
+
+    private void itemsChanged(ListChangeListener.Change<?> ch) {
+        while(ch.next()) {
+            int from = ch.getFrom();
+            if(ch.wasPermutated() || ch.wasUpdated()) {
+                drop(from, ch.getTo(), 0);
+            } else {
+                drop(from, from + ch.getRemovedSize(), ch.getAddedSize() - ch.getRemovedSize());
+            }
+        }
+    }
+
+    /**
+     * Drops the items in {@code [from, to)} from the ranges and moves the items after them by the given shift
+     */
+    private void drop(int from, int to, int shift) {
+        List<Range> result = new ArrayList<>(ranges.size() + 1);
+        for(Range range: ranges) {
+            int end = range.from + range.size;
+            if(end <= from) {
+                result.add(range);
+            } else if(range.from >= to) {
+                range.from += shift;
+                result.add(range);
+            } else {
+                if(range.from < from) {
+                    result.add(new Range(range.savedFrom, range.from, from - range.from));
+                }
+                if(end > to) {
+                    result.add(new Range(range.savedFrom + to - range.from, to + shift, end - to));
+                }
+            }
+        }
+        ranges.clear();
+        ranges.addAll(result);
+    }
+
+    /** Saved items {@code [savedFrom, savedFrom + size)}, which are at {@code [from, from + size)} now */
+    private static final class Range {
+        int savedFrom;
+        int from;
+        int size;
+
+        Range(int savedFrom, int from, int size) {
+            this.savedFrom = savedFrom;
+            this.from = from;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,497 @@
+package org.fxmisc.flowless;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A list of sizes, one per item, each of which may be known or unknown. Sizes are kept in pages of primitive
+ * {@code double}s with a bitmap of which ones are known, so that storing a size takes no more than a few bytes and
+ * ranges of unknown sizes take no memory besides the page headers. Each page keeps the count and sum of its known
+ * sizes, so that these can be queried without visiting every item. If asked to, the store also counts how often
+ * each size occurs, which keeps the greatest known size available in O(log n) as sizes are added and removed,
+ * and robust statistics such as the median available in time proportional to the number of distinct sizes.
+ *
+ * <p>
+ *     Inserting or removing items only splits, trims or merges the pages at the boundaries of the change and
+ *     inserts or removes the pages in between, so it does not move the sizes of the other items.
+ * </p>
+ */
+final class SizeStore {
+
+    /** The number of sizes a page holds at most */
+    static final int PAGE_SIZE = 1024;
+
+    private static final class Page {
+        /** Null as long as no size in the page is known */
+        double[] values;
+        long[] known;
+        int size;
+        int count;
+        double sum;
+
+        Page(int size) {
+            this.size = size;
+        }
+
+        boolean isKnown(int i) {
+            return known != null && (known[i >>> 6] & (1L << i)) != 0;
+        }
+
+        void set(int i, double value) {
+            if(values == null) {
+                values = new double[PAGE_SIZE];
+                known = new long[PAGE_SIZE / 64];
+            }
+            if(isKnown(i)) {
+                sum -= values[i];
+            } else {
+                known[i >>> 6] |= 1L << i;
+                ++count;
+            }
+            values[i] = value;
+            sum += value;
+        }
+
+        void forget(int i) {
+            if(isKnown(i)) {
+                known[i >>> 6] &= ~(1L << i);
+                --count;
+                sum -= values[i];
+            }
+        }
+
+        int countBefore(int end) {
+            if(count == 0) {
+                return 0;
+            } else if(end >= size) {
+                return count;
+            }
+            int n = 0;
+            for(int w = 0; w < end >>> 6; ++w) {
+                n += Long.bitCount(known[w]);
+            }
+            if((end & 63) != 0) {
+                n += Long.bitCount(known[end >>> 6] & ((1L << end) - 1));
+            }
+            return n;
+        }
+
+        double sumBefore(int end) {
+            if(count == 0) {
+                return 0.0;
+            } else if(end >= size) {
+                return sum;
+            }
+            double s = 0.0;
+            for(int i = 0; i < end; ++i) {
+                if(isKnown(i)) {
+                    s += values[i];
+                }
+            }
+            return s;
+        }
+
+        /** Removes the sizes in {@code [from, to)} and moves the ones after them down */
+        void remove(int from, int to) {
+            for(int i = from; i < to; ++i) {
+                forget(i);
+            }
+            if(count > 0) {
+                for(int i = to; i < size; ++i) {
+                    move(i, i - (to - from));
+                }
+            }
+            size -= to - from;
+        }
+
+        /** Moves the sizes in {@code [from, size)} into a new page */
+        Page split(int from) {
+            Page page = new Page(size - from);
+            if(count > 0) {
+                for(int i = from; i < size; ++i) {
+                    if(isKnown(i)) {
+                        page.set(i - from, values[i]);
+                        forget(i);
+                    }
+                }
+            }
+            size = from;
+            return page;
+        }
+
+        /** Moves the sizes of the given page to the end of this one */
+        void append(Page page) {
+            for(int i = 0; i < page.size && page.count > 0; ++i) {
+                if(page.isKnown(i)) {
+                    set(size + i, page.values[i]);
+                }
+            }
+            size += page.size;
+        }
+
+        private void move(int from, int to) {
+            if(isKnown(from)) {
+                double value = values[from];
+                forget(from);
+                set(to, value);
+            } else {
+                forget(to);
+            }
+        }
+    }
+
+    /** How often each known size occurs, or null if not counted */
+    private TreeMap<Double, Integer> valueCounts;
+
+    private final List<Page> pages = new ArrayList<>();
+    private int size = 0;
+    private int count = 0;
+
+    /** Index of the first item of each page, and count and sum of the known sizes before each page */
+    private int[] pageStarts = new int[0];
+    private int[] countsBefore = new int[0];
+    private double[] sumsBefore = new double[0];
+    private boolean pageStartsValid = true;
+    private boolean prefixesValid = true;
+
+    /**
+     * @param countValues whether to count how often each size occurs, which is needed for {@link #knownMax()}
+     */
+    SizeStore(boolean countValues) {
+        this.valueCounts = countValues ? new TreeMap<>() : null;
+    }
+
+    /**
+     * Sets whether to count how often each size occurs (see {@link #SizeStore(boolean)}). Starting to count takes
+     * a pass over the known sizes.
+     */
+    public void setCountValues(boolean countValues) {
+        if(!countValues) {
+            valueCounts = null;
+        } else if(valueCounts == null) {
+            valueCounts = new TreeMap<>();
+            for(Page page: pages) {
+                for(int i = 0; i < page.size && page.count > 0; ++i) {
+                    if(page.isKnown(i)) {
+                        valueCounts.merge(page.values[i], 1, Integer::sum);
+                    }
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Returns the number of known sizes */
+    public int knownCount() {
+        return count;
+    }
+
+    public boolean isKnown(int index) {
+        int p = pageOf(index);
+        return pages.get(p).isKnown(index - pageStarts[p]);
+    }
+
+    /** Returns the size at the given index, which has to be known */
+    public double get(int index) {
+        int p = pageOf(index);
+        Page page = pages.get(p);
+        int i = index - pageStarts[p];
+        assert page.isKnown(i);
+        return page.values[i];
+    }
+
+    public void set(int index, double value) {
+        int p = pageOf(index);
+        Page page = pages.get(p);
+        int i = index - pageStarts[p];
+        if(!page.isKnown(i)) {
+            ++count;
+        } else {
+            uncount(page.values[i]);
+        }
+        page.set(i, value);
+        if(valueCounts != null) {
+            valueCounts.merge(value, 1, Integer::sum);
+        }
+        prefixesValid = false;
+    }
+
+    public void forget(int index) {
+        int p = pageOf(index);
+        Page page = pages.get(p);
+        int i = index - pageStarts[p];
+        if(page.isKnown(i)) {
+            --count;
+            uncount(page.values[i]);
+            page.forget(i);
+            prefixesValid = false;
+        }
+    }
+
+    /** Forgets all sizes, but keeps the number of items */
+    public void forgetAll() {
+        int n = size;
+        pages.clear();
+        size = 0;
+        count = 0;
+        if(valueCounts != null) {
+            valueCounts.clear();
+        }
+        pageStartsValid = false;
+        prefixesValid = false;
+        insert(0, n);
+    }
+
+    /** Returns the sum of the known sizes */
+    public double knownSum() {
+        double s = 0.0;
+        for(Page page: pages) {
+            s += page.sum;
+        }
+        return s;
+    }
+
+    /**
+     * Returns the greatest known size, or {@link Double#NEGATIVE_INFINITY} if no size is known.
+     * Only available if the store counts values.
+     */
+    public double knownMax() {
+        TreeMap<Double, Integer> values = countedValues();
+        return values.isEmpty() ? Double.NEGATIVE_INFINITY : values.lastKey();
+    }
+
+    /**
+     * Returns the median of the known sizes, or NaN if no size is known. Only available if the store counts values.
+     */
+    public double knownMedian() {
+        if(count == 0) {
+            return Double.NaN;
+        }
+        return (nthKnown((count - 1) / 2) + nthKnown(count / 2)) / 2;
+    }
+
+    /**
+     * Returns the mean of the known sizes without the given fraction of the smallest and of the greatest ones,
+     * or NaN if no size is known. Only available if the store counts values.
+     */
+    public double knownTrimmedMean(double fraction) {
+        if(count == 0) {
+            return Double.NaN;
+        }
+        int trimmed = Math.min((int) (count * fraction), (count - 1) / 2);
+        int from = trimmed;
+        int to = count - trimmed;
+        double sum = 0.0;
+        int i = 0;
+        for(Map.Entry<Double, Integer> entry: countedValues().entrySet()) {
+            int n = Math.min(i + entry.getValue(), to) - Math.max(i, from);
+            if(n > 0) {
+                sum += n * entry.getKey();
+            }
+            i += entry.getValue();
+            if(i >= to) {
+                break;
+            }
+        }
+        return sum / (to - from);
+    }
+
+    /** Returns the index of the first unknown size at or after the given index, or -1 if there is none */
+    public int nextUnknown(int index) {
+        return count == size ? -1 : next(index, false);
+    }
+
+    /** Returns the index of the first known size at or after the given index, or -1 if there is none */
+    public int nextKnown(int index) {
+        return count == 0 ? -1 : next(index, true);
+    }
+
+    private int next(int index, boolean known) {
+        if(index >= size) {
+            return -1;
+        }
+        int p = pageOf(index);
+        int i = index - pageStarts[p];
+        for(; p < pages.size(); ++p, i = 0) {
+            Page page = pages.get(p);
+            if(page.count == (known ? 0 : page.size)) {
+                continue;
+            }
+            for(; i < page.size; ++i) {
+                if(page.isKnown(i) == known) {
+                    return pageStarts[p] + i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /** Returns the number of known sizes before the given index */
+    public int knownCountBefore(int index) {
+        if(index >= size) {
+            return count;
+        }
+        int p = pageOf(index);
+        updatePrefixes();
+        return countsBefore[p] + pages.get(p).countBefore(index - pageStarts[p]);
+    }
+
+    /** Returns the sum of the known sizes before the given index */
+    public double knownSumBefore(int index) {
+        if(index >= size) {
+            return knownSum();
+        }
+        int p = pageOf(index);
+        updatePrefixes();
+        return sumsBefore[p] + pages.get(p).sumBefore(index - pageStarts[p]);
+    }
+
+    /**
+     * Replaces {@code removedSize} sizes starting at {@code from} with {@code addedSize} unknown sizes
+     */
+    public void replace(int from, int removedSize, int addedSize) {
+        if(removedSize > 0) {
+            remove(from, from + removedSize);
+        }
+        if(addedSize > 0) {
+            insert(from, addedSize);
+        }
+    }
+
+    private void remove(int from, int to) {
+        int first = pageOf(from);
+        int p = first;
+        int offset = from - pageStarts[p];
+        int n = to - from;
+        while(n > 0) {
+            Page page = pages.get(p);
+            int k = Math.min(n, page.size - offset);
+            if(valueCounts != null && page.count > 0) {
+                for(int i = offset; i < offset + k; ++i) {
+                    if(page.isKnown(i)) {
+                        uncount(page.values[i]);
+                    }
+                }
+            }
+            count -= page.count;
+            if(offset == 0 && k == page.size) {
+                pages.remove(p);
+            } else {
+                page.remove(offset, offset + k);
+                count += page.count;
+                ++p;
+                offset = 0;
+            }
+            n -= k;
+        }
+        size -= to - from;
+        pageStartsValid = false;
+        prefixesValid = false;
+        mergeAround(first);
+        mergeAround(first - 1);
+    }
+
+    private void insert(int at, int n) {
+        int p;
+        if(at == size) {
+            p = pages.size();
+        } else {
+            p = pageOf(at);
+            int offset = at - pageStarts[p];
+            if(offset > 0) {
+                pages.add(p + 1, pages.get(p).split(offset));
+                ++p;
+            }
+        }
+        int first = p;
+        for(int remaining = n; remaining > 0; remaining -= PAGE_SIZE) {
+            pages.add(p++, new Page(Math.min(remaining, PAGE_SIZE)));
+        }
+        size += n;
+        pageStartsValid = false;
+        prefixesValid = false;
+        mergeAround(p);
+        mergeAround(first - 1);
+    }
+
+    /** Returns the n-th smallest known size */
+    private double nthKnown(int n) {
+        int i = 0;
+        for(Map.Entry<Double, Integer> entry: countedValues().entrySet()) {
+            i += entry.getValue();
+            if(n < i) {
+                return entry.getKey();
+            }
+        }
+        throw new IndexOutOfBoundsException(n + " not in [0, " + count + ")");
+    }
+
+    private TreeMap<Double, Integer> countedValues() {
+        if(valueCounts == null) {
+            throw new UnsupportedOperationException("Values are not counted");
+        }
+        return valueCounts;
+    }
+
+    private void uncount(double value) {
+        if(valueCounts != null) {
+            valueCounts.computeIfPresent(value, (v, n) -> n == 1 ? null : n - 1);
+        }
+    }
+
+    /** Merges the page at the given index with the one after it, if they fit into one page */
+    private void mergeAround(int p) {
+        if(p >= 0 && p + 1 < pages.size() && pages.get(p).size + pages.get(p + 1).size <= PAGE_SIZE) {
+            pages.get(p).append(pages.remove(p + 1));
+            pageStartsValid = false;
+            prefixesValid = false;
+        }
+    }
+
+    private int pageOf(int index) {
+        if(index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index + " not in [0, " + size + ")");
+        }
+        updatePageStarts();
+        int p = Arrays.binarySearch(pageStarts, 0, pages.size(), index);
+        return p >= 0 ? p : -p - 2;
+    }
+
+    private void updatePageStarts() {
+        if(!pageStartsValid) {
+            if(pageStarts.length < pages.size()) {
+                pageStarts = new int[pages.size() * 2];
+            }
+            int start = 0;
+            for(int p = 0; p < pages.size(); ++p) {
+                pageStarts[p] = start;
+                start += pages.get(p).size;
+            }
+            pageStartsValid = true;
+        }
+    }
+
+    private void updatePrefixes() {
+        if(!prefixesValid) {
+            if(countsBefore.length < pages.size()) {
+                countsBefore = new int[pages.size() * 2];
+                sumsBefore = new double[pages.size() * 2];
+            }
+            int c = 0;
+            double s = 0.0;
+            for(int p = 0; p < pages.size(); ++p) {
+                countsBefore[p] = c;
+                sumsBefore[p] = s;
+                c += pages.get(p).count;
+                s += pages.get(p).sum;
+            }
+            prefixesValid = true;
+        }
+    }
+}
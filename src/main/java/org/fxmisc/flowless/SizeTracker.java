@@ -1,43 +1,151 @@
 package org.fxmisc.flowless;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
-import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
 
+import javafx.application.Platform;
 import javafx.beans.value.ObservableObjectValue;
+import javafx.beans.value.ObservableValue;
 import javafx.geometry.Bounds;
-import javafx.scene.control.IndexRange;
 
+import org.fxmisc.flowless.VirtualFlow.BreadthPolicy;
+import org.fxmisc.flowless.VirtualFlow.LengthStatistic;
+import org.reactfx.EventSource;
+import org.reactfx.EventStream;
+import org.reactfx.Guard;
 import org.reactfx.Subscription;
+import org.reactfx.SuspendableEventStream;
 import org.reactfx.collection.LiveList;
 import org.reactfx.collection.MemoizationList;
+import org.reactfx.collection.QuasiListChange;
+import org.reactfx.collection.QuasiListModification;
+import org.reactfx.util.FxTimer;
+import org.reactfx.util.Timer;
 import org.reactfx.value.Val;
-import org.reactfx.value.ValBase;
 
 /**
  * Estimates the size of the entire viewport (if it was actually completely rendered) based on the known sizes of the
  * {@link Cell}s whose nodes are currently displayed in the viewport and an estimated average of
- * {@link Cell}s whose nodes are not displayed in the viewport. The meaning of {@link #breadthForCells} and
+ * {@link Cell}s whose nodes are not displayed in the viewport. The meaning of {@link #getCellLayoutBreadth()} and
  * {@link #totalLengthEstimate} are dependent upon which implementation of {@link OrientationHelper} is used.
+ *
+ * <p>
+ *     The estimates are not derived reactively from the sizes. Instead, any change that may affect them (a change
+ *     of the items, a size that is measured or forgotten, cells that are laid out) only marks them as
+ *     {@link #estimatesDirty dirty}, and they are all recomputed the next time one of them is asked for.
+ *     The {@link Val}s exposed to the outside are invalidated when the estimates become dirty, at most once
+ *     per layout pass (see {@link #suspendNotifications()}).
+ * </p>
+ *
+ * <p>
+ *     If the items are given {@link #categoryOf categories}, the length of an item that is not known is estimated
+ *     from the known lengths of the items of its category, and only from all known lengths as long as none of its
+ *     category is known. Each estimate is the {@link #lengthStatistic} of the lengths it is taken from.
+ * </p>
  */
 final class SizeTracker {
+
     private final OrientationHelper orientation;
     private final ObservableObjectValue<Bounds> viewportBounds;
     private final MemoizationList<? extends Cell<?, ?>> cells;
 
-    private final MemoizationList<Double> breadths;
-    private final Val<Double> maxKnownMinBreadth;
+    /**
+     * Sizes of the present cells, by cell. Unlike {@link #breadths} and {@link #lengths}, these are kept when
+     * a cell is moved along with its item, until the cell is released or its size is forgotten.
+     */
+    private final Map<Cell<?, ?>, Double> cellBreadths = new IdentityHashMap<>();
+    private final Map<Cell<?, ?>, Double> cellLengths = new IdentityHashMap<>();
 
-    /** Stores either the greatest minimum cell's node's breadth or the viewport's breadth */
-    private final Val<Double> breadthForCells;
+    /**
+     * Lengths by breadth and size key of the item (see {@link #sizeKeyOf}). Unlike {@link #cellLengths}, these are
+     * kept when the cell is released or the breadth changes, so that an item that gets a cell again, another item
+     * with the same size key, or a breadth that was used before does not need measuring.
+     */
+    private final LengthCache lengthCache = new LengthCache();
 
-    private final MemoizationList<Double> lengths;
+    /** Returns the size key of the item that the given cell displays, or null if it has none */
+    private final Function<? super Cell<?, ?>, ?> sizeKeyOf;
 
-    /** Stores either null or the average length of the cells' nodes currently displayed in the viewport */
-    private final Val<Double> averageLengthEstimate;
+    /** How long the breadth has to stay the same before the cells are measured at the new breadth */
+    private final ObservableValue<Duration> liveResizeDelay;
+
+    /** Which cells' breadths the breadth for cells is derived from */
+    private final ObservableValue<BreadthPolicy> breadthPolicy;
+
+    private final EventSource<Double> deferredRemeasurements = new EventSource<>();
+    private Timer remeasureTimer = null;
+    private double pendingLengthBreadth = Double.NaN;
+
+    /** Whether the present cells are low-detail stand-ins, see {@link #setLowDetail(boolean)} */
+    private boolean lowDetail = false;
+
+    /** The breadth for which {@link #cellLengths} were measured */
+    private double cellLengthsBreadth = Double.NaN;
+
+    /** Minimum breadths of the items' cells, by item index, counted so that their maximum is kept up to date */
+    private final SizeStore breadths = new SizeStore(true);
+
+    /**
+     * Lengths of the items' cells at {@link #lengthBreadth}, by item index, whose values are only counted while
+     * the {@link #lengthStatistic} needs them
+     */
+    private final SizeStore lengths = new SizeStore(false);
+
+    /** Returns the category of the item at an index, or is null if the items are not categorized */
+    private final ObservableValue<? extends IntFunction<?>> categoryOf;
+
+    /** The categories of the items and the lengths by category, or null if the items are not categorized */
+    private CategorizedLengths categorizedLengths = null;
+
+    /** How the length of an item is estimated from the known lengths */
+    private final ObservableValue<LengthStatistic> lengthStatistic;
+
+    /** The fraction of the smallest and of the greatest lengths left out of {@link LengthStatistic#TRIMMED_MEAN} */
+    static final double TRIMMED_FRACTION = 0.1;
+
+    /** The breadth at which {@link #lengths} are measured */
+    private double lengthBreadth = Double.NaN;
+
+    /**
+     * Changes whenever the items are changed or {@link #lengthBreadth} changes, i.e. whenever lengths computed
+     * before can no longer be stored by item index
+     */
+    private long lengthsGeneration = 0;
+
+    /** The number of lengths forgotten one by one, see {@link #getForgetCount()} */
+    private long forgetCount = 0;
+
+    /** The {@link #forgetCount} at which the length of an item was last forgotten, by item index, in this generation */
+    private final Map<Integer, Long> forgottenAt = new HashMap<>();
+
+    /** Whether the estimates below are out of date */
+    private boolean estimatesDirty = true;
+
+    /** Whether the known lengths have changed since {@link #averageLength} and {@link #categoryLengths} */
+    private boolean lengthsChanged = true;
 
+    /** Either null or the {@link #lengthStatistic} of the known lengths */
+    private Double averageLength = null;
+
+    /** The estimated length of an item, by category */
+    private double[] categoryLengths = new double[0];
+
+    private Double totalLength = null;
+    private double lengthOffset = 0.0;
+
+    private final EventSource<Void> estimatesChanged = new EventSource<>();
+    private final SuspendableEventStream<Void> estimateInvalidations = estimatesChanged.forgetful();
+
+    private final Val<Double> maxKnownMinBreadth;
+    private final Val<Double> averageLengthEstimate;
     private final Val<Double> totalLengthEstimate;
     private final Val<Double> lengthOffsetEstimate;
+    private final Val<Double> measuredLengthFraction;
 
     private final Subscription subscription;
 
@@ -46,117 +154,320 @@ final class SizeTracker {
      *
      * @param orientation if vertical, breadth = width and length = height;
      *                    if horizontal, breadth = height and length = width
+     * @param releasedCells cells that stop displaying their item, whose sizes are not needed anymore
+     * @param sizeKeyOf returns the key under which the length of a cell's item is cached, or null
+     * @param liveResizeDelay if positive, how long the breadth has to stay the same before the cells are measured
+     *                        at the new breadth; until then, their lengths at the previous breadth are used
+     * @param breadthPolicy which cells' breadths the breadth for cells is derived from
+     * @param categoryOf returns the category of the item at an index, or is null if the items are not categorized
+     * @param lengthStatistic how the length of an item is estimated from the known lengths
      */
     public SizeTracker(
             OrientationHelper orientation,
             ObservableObjectValue<Bounds> viewportBounds,
-            MemoizationList<? extends Cell<?, ?>> lazyCells) {
+            MemoizationList<? extends Cell<?, ?>> lazyCells,
+            EventStream<? extends Cell<?, ?>> releasedCells,
+            Function<? super Cell<?, ?>, ?> sizeKeyOf,
+            ObservableValue<Duration> liveResizeDelay,
+            ObservableValue<BreadthPolicy> breadthPolicy,
+            ObservableValue<? extends IntFunction<?>> categoryOf,
+            ObservableValue<LengthStatistic> lengthStatistic) {
         this.orientation = orientation;
+        this.breadthPolicy = breadthPolicy;
+        this.categoryOf = categoryOf;
+        this.lengthStatistic = lengthStatistic;
+        this.sizeKeyOf = sizeKeyOf;
+        this.liveResizeDelay = liveResizeDelay;
         this.viewportBounds = viewportBounds;
         this.cells = lazyCells;
-        this.breadths = lazyCells.map(orientation::minBreadth).memoize();
-        this.maxKnownMinBreadth = breadths.memoizedItems()
-                .reduce(Math::max)
-                .orElseConst(0.0);
-
-        this.breadthForCells = Val.combine(
-                maxKnownMinBreadth,
-                viewportBounds,
-                (a, b) -> Math.max(a, orientation.breadth(b)));
-
-        Val<Function<Cell<?, ?>, Double>> lengthFn;
-        lengthFn = (orientation instanceof HorizontalHelper ? breadthForCells : avoidFalseInvalidations(breadthForCells))
-                .map(breadth -> cell -> orientation.prefLength(cell, breadth));
-
-        this.lengths = cells.mapDynamic(lengthFn).memoize();
-        LiveList<Double> knownLengths = this.lengths.memoizedItems();
-
-        Val<Double> sumOfKnownLengths = knownLengths.reduce((a, b) -> a + b).orElseConst(0.0);
-        Val<Integer> knownLengthCount = knownLengths.sizeProperty();
+        breadths.replace(0, 0, cells.size());
+        lengths.replace(0, 0, cells.size());
+        lengths.setCountValues(countsLengths());
+        categorize();
 
+        this.maxKnownMinBreadth = Val.create(
+                () -> {
+                    updateEstimates();
+                    return getMaxKnownMinBreadth();
+                },
+                estimateInvalidations);
         this.averageLengthEstimate = Val.create(
+                () -> getAverageLengthEstimate().orElse(null),
+                estimateInvalidations);
+        this.totalLengthEstimate = Val.create(
                 () -> {
-                    // make sure to use pref lengths of all present cells
-                    for(int i = 0; i < cells.getMemoizedCount(); ++i) try {
-                        int j = cells.indexOfMemoizedItem(i);
-                        lengths.force(j, j + 1);
-                    }
-                    catch ( IndexOutOfBoundsException IX ) {}
-                    catch ( NoSuchElementException EX ) {}
+                    updateEstimates();
+                    return totalLength;
+                },
+                estimateInvalidations);
+        this.lengthOffsetEstimate = Val.create(
+                () -> {
+                    updateEstimates();
+                    return lengthOffset;
+                },
+                estimateInvalidations);
 
-                    int count = knownLengthCount.getValue();
-                    return count == 0
-                            ? null
-                            : sumOfKnownLengths.getValue() / count;
+        this.measuredLengthFraction = Val.create(
+                () -> {
+                    updateEstimates();
+                    return cells.isEmpty() ? 1.0 : (double) lengths.knownCount() / cells.size();
                 },
-                sumOfKnownLengths, knownLengthCount);
-
-        this.totalLengthEstimate = Val.combine(
-                averageLengthEstimate, cells.sizeProperty(),
-                (avg, n) -> n * avg);
-
-        Val<Integer> firstVisibleIndex = Val.create(
-                () -> cells.getMemoizedCount() == 0 ? null : cells.indexOfMemoizedItem(0),
-                cells, cells.memoizedItems()); // need to observe cells.memoizedItems()
-                // as well, because they may change without a change in cells.
-
-        Val<Integer> knownLengthCountBeforeFirstVisibleCell = Val.create(() -> {
-            return firstVisibleIndex.getOpt()
-                    .map(i -> lengths.getMemoizedCountBefore(Math.min(i, lengths.size())))
-                    .orElse(0);
-        }, lengths, firstVisibleIndex);
-
-        Val<Double> totalKnownLengthBeforeFirstVisibleCell = knownLengths.reduceRange(
-                knownLengthCountBeforeFirstVisibleCell.map(n -> new IndexRange(0, n)),
-                (a, b) -> a + b).orElseConst(0.0);
-
-        Val<Double> unknownLengthEstimateBeforeFirstVisibleCell = Val.combine(
-                firstVisibleIndex.orElseConst(0),
-                knownLengthCountBeforeFirstVisibleCell,
-                averageLengthEstimate,
-                (firstIdx, knownCnt, avgLen) -> (firstIdx - knownCnt) * avgLen);
-
-        Val<Double> firstCellMinY = cells.memoizedItems()
-                .collapse(visCells -> visCells.isEmpty() ? null : visCells.get(0))
-                .flatMap(orientation::minYProperty);
-
-        lengthOffsetEstimate = Val.combine(
-                totalKnownLengthBeforeFirstVisibleCell,
-                unknownLengthEstimateBeforeFirstVisibleCell,
-                firstCellMinY,
-                (a, b, minY) -> Double.valueOf(Math.round(a + b - minY))
-        )
-        .orElseConst(0.0);
-
-        // pinning totalLengthEstimate and lengthOffsetEstimate
-        // binds it all together and enables memoization
+                estimateInvalidations);
+
         this.subscription = Subscription.multi(
-                totalLengthEstimate.pin(),
-                lengthOffsetEstimate.pin());
+                // keep the stores in line with the cells before anything derived from the cells is notified
+                LiveList.observeQuasiChanges(cells, this::cellsChanged),
+                // the first present cell may change without a change in cells
+                cells.memoizedItems().observeQuasiChanges(ch -> markDirty()),
+                releasedCells.subscribe(this::forgetCellSize),
+                Val.observeInvalidations(breadthPolicy, obs -> markDirty()),
+                Val.observeInvalidations(categoryOf, obs -> {
+                    categorize();
+                    markLengthsChanged();
+                }),
+                Val.observeInvalidations(lengthStatistic, obs -> {
+                    lengths.setCountValues(countsLengths());
+                    if(categorizedLengths != null) {
+                        categorizedLengths.setCountValues(countsLengths());
+                    }
+                    markLengthsChanged();
+                }),
+                this::stopRemeasureTimer);
     }
 
-    private static <T> Val<T> avoidFalseInvalidations(Val<T> src) {
-        return new ValBase<T>() {
-            @Override
-            protected Subscription connect() {
-                return src.observeChanges((obs, oldVal, newVal) -> invalidate());
+    private void cellsChanged(QuasiListChange<?> ch) {
+        nextLengthsGeneration();
+        for(QuasiListModification<?> mod: ch) {
+            breadths.replace(mod.getFrom(), mod.getRemovedSize(), mod.getAddedSize());
+            lengths.replace(mod.getFrom(), mod.getRemovedSize(), mod.getAddedSize());
+            if(categorizedLengths != null) {
+                categorizedLengths.replace(
+                        mod.getFrom(), mod.getRemovedSize(), mod.getAddedSize(), categoryOf.getValue());
             }
+        }
+        markLengthsChanged();
+    }
+
+    private void categorize() {
+        IntFunction<?> f = categoryOf.getValue();
+        categorizedLengths = f == null ? null : new CategorizedLengths(f, lengths, countsLengths());
+    }
+
+    /** Whether the {@link #lengthStatistic} needs to know how often each length occurs */
+    private boolean countsLengths() {
+        LengthStatistic statistic = lengthStatistic.getValue();
+        return statistic == LengthStatistic.MEDIAN || statistic == LengthStatistic.TRIMMED_MEAN;
+    }
+
+    private void setLength(int itemIndex, double length) {
+        lengths.set(itemIndex, length);
+        if(categorizedLengths != null) {
+            categorizedLengths.set(itemIndex, length);
+        }
+        markLengthsChanged();
+    }
 
-            @Override
-            protected T computeValue() {
-                return src.getValue();
+    private void forgetLength(int itemIndex) {
+        forgottenAt.put(itemIndex, ++forgetCount);
+        lengths.forget(itemIndex);
+        if(categorizedLengths != null) {
+            categorizedLengths.forget(itemIndex);
+        }
+        markLengthsChanged();
+    }
+
+    private void nextLengthsGeneration() {
+        ++lengthsGeneration;
+        forgottenAt.clear();
+    }
+
+    private void markLengthsChanged() {
+        lengthsChanged = true;
+        markDirty();
+    }
+
+    private void markDirty() {
+        if(!estimatesDirty) {
+            estimatesDirty = true;
+            estimatesChanged.push(null);
+        }
+    }
+
+    private void updateEstimates() {
+        if(!estimatesDirty) {
+            return;
+        }
+
+        // make sure to use pref lengths of all present cells
+        for(int i = 0; i < cells.getMemoizedCount(); ++i) {
+            lengthFor(cells.indexOfMemoizedItem(i));
+        }
+        estimatesDirty = false;
+
+        if(lengthsChanged) {
+            lengthsChanged = false;
+            averageLength = lengths.knownCount() == 0 ? null : statisticOf(lengths);
+            if(categorizedLengths != null) {
+                categoryLengths = new double[categorizedLengths.categoryCount()];
+                for(int c = 0; c < categoryLengths.length; ++c) {
+                    SizeStore known = categorizedLengths.lengthsOf(c);
+                    categoryLengths[c] = known.knownCount() > 0
+                            ? statisticOf(known)
+                            : averageLength == null ? 0.0 : averageLength;
+                }
             }
-        };
+        }
+        totalLength = averageLength == null ? null : lengths.knownSum() + unknownLengthBefore(cells.size());
+
+        if(cells.getMemoizedCount() == 0 || averageLength == null) {
+            lengthOffset = 0.0;
+        } else {
+            int first = cells.indexOfMemoizedItem(0);
+            double knownLengthBefore = lengths.knownSumBefore(first);
+            double unknownLengthBefore = unknownLengthBefore(first);
+            double firstCellMinY = orientation.minY(cells.memoizedItems().get(0).getNode());
+            lengthOffset = Math.round(knownLengthBefore + unknownLengthBefore - firstCellMinY);
+        }
+    }
+
+    private double statisticOf(SizeStore lengths) {
+        switch(lengthStatistic.getValue()) {
+            case MEDIAN: return lengths.knownMedian();
+            case TRIMMED_MEAN: return lengths.knownTrimmedMean(TRIMMED_FRACTION);
+            default: return lengths.knownSum() / lengths.knownCount();
+        }
+    }
+
+    /** Returns the estimated total length of the items before the given index whose length is not known */
+    private double unknownLengthBefore(int itemIndex) {
+        if(categorizedLengths == null) {
+            return (itemIndex - lengths.knownCountBefore(itemIndex)) * averageLength;
+        }
+        double length = 0.0;
+        for(int c = 0; c < categoryLengths.length; ++c) {
+            int unknown = categorizedLengths.countBefore(c, itemIndex)
+                    - categorizedLengths.lengthsOf(c).knownCountBefore(itemIndex);
+            length += unknown * categoryLengths[c];
+        }
+        return length;
+    }
+
+    /**
+     * Moves {@link #lengthBreadth} to the current breadth for cells, forgetting all lengths. If
+     * {@link #liveResizeDelay} is positive, this is done once the breadth has not changed for that long, and
+     * {@link #deferredRemeasurements()} emits it.
+     */
+    private void updateLengthBreadth() {
+        double breadth = getCellLayoutBreadth();
+        if(breadth == lengthBreadth) {
+            stopRemeasureTimer();
+            return;
+        } else if(remeasureTimer != null && breadth == pendingLengthBreadth) {
+            return;
+        }
+
+        Duration delay = liveResizeDelay.getValue();
+        stopRemeasureTimer();
+        if(delay == null || delay.isZero() || delay.isNegative() || !(lengthBreadth > 0)) {
+            setLengthBreadth(breadth);
+        } else {
+            pendingLengthBreadth = breadth;
+            remeasureTimer = FxTimer.runLater(delay, () -> {
+                remeasureTimer = null;
+                double b = getCellLayoutBreadth();
+                setLengthBreadth(b);
+                deferredRemeasurements.push(b);
+            });
+        }
+    }
+
+    private void setLengthBreadth(double breadth) {
+        lengthBreadth = breadth;
+        nextLengthsGeneration();
+        lengths.forgetAll();
+        if(categorizedLengths != null) {
+            categorizedLengths.forgetAll();
+        }
+        markLengthsChanged();
+    }
+
+    private void stopRemeasureTimer() {
+        if(remeasureTimer != null) {
+            remeasureTimer.stop();
+            remeasureTimer = null;
+        }
+    }
+
+    private double minBreadthOf(Cell<?, ?> cell) {
+        return cellBreadths.computeIfAbsent(cell, orientation::minBreadth);
+    }
+
+    private double prefLengthOf(Cell<?, ?> cell, double breadth) {
+        if(breadth != cellLengthsBreadth) {
+            cellLengths.clear();
+            cellLengthsBreadth = breadth;
+        }
+        return cellLengths.computeIfAbsent(cell, c -> {
+            Object key = sizeKeyOf.apply(c);
+            if(key == null) {
+                return orientation.prefLength(c, breadth);
+            }
+            return lengthCache.get(breadth, key, () -> orientation.prefLength(c, breadth));
+        });
+    }
+
+    private void forgetCellSize(Cell<?, ?> cell) {
+        cellBreadths.remove(cell);
+        cellLengths.remove(cell);
     }
 
     public void dispose() {
         subscription.unsubscribe();
     }
 
+    /**
+     * Holds back invalidations of the exposed {@link Val}s until the returned guard is closed, and then emits
+     * at most one. Used to notify the observers of the estimates once per layout pass.
+     */
+    public Guard suspendNotifications() {
+        return estimateInvalidations.suspend();
+    }
+
+    /** Marks the estimates dirty after cells have been positioned, which moves the first cell */
+    public void cellsLaidOut() {
+        markDirty();
+    }
+
+    /**
+     * Emits the breadth at which cells are to be measured when it is changed after a
+     * {@link #liveResizeDelay delay}, which is when the cells need to be laid out again.
+     */
+    public EventStream<Double> deferredRemeasurements() {
+        return deferredRemeasurements;
+    }
+
     public Val<Double> maxCellBreadthProperty() {
         return maxKnownMinBreadth;
     }
 
+    private double getMaxKnownMinBreadth() {
+        BreadthPolicy policy = breadthPolicy.getValue();
+        if(policy == BreadthPolicy.FIT_VIEWPORT) {
+            return 0.0;
+        } else if(policy == BreadthPolicy.MAX_VISIBLE) {
+            double max = 0.0;
+            for(int i = 0; i < cells.getMemoizedCount(); ++i) {
+                int itemIndex = cells.indexOfMemoizedItem(i);
+                if(breadths.isKnown(itemIndex)) {
+                    max = Math.max(max, breadths.get(itemIndex));
+                }
+            }
+            return max;
+        } else {
+            return breadths.knownCount() == 0 ? 0.0 : breadths.knownMax();
+        }
+    }
+
     public double getViewportBreadth() {
         return orientation.breadth(viewportBounds.get());
     }
@@ -170,33 +481,259 @@ final class SizeTracker {
     }
 
     public Optional<Double> getAverageLengthEstimate() {
-        return averageLengthEstimate.getOpt();
+        updateEstimates();
+        return Optional.ofNullable(averageLength);
     }
 
     public Val<Double> totalLengthEstimateProperty() {
         return totalLengthEstimate;
     }
 
+    /**
+     * Returns the estimated offset of the given item from the start of the content: the known lengths of the
+     * items before it plus the estimated lengths of the others. Only meaningful if some length is known.
+     */
+    public double estimatedOffsetOf(int itemIndex) {
+        updateEstimates();
+        return averageLength == null ? 0.0 : lengths.knownSumBefore(itemIndex) + unknownLengthBefore(itemIndex);
+    }
+
+    /**
+     * Returns the index of the item at the given estimated offset from the start of the content (see
+     * {@link #estimatedOffsetOf(int)}), the last item if the offset is past the end, or -1 if no length is known
+     */
+    public int estimatedItemIndexAt(double offset) {
+        updateEstimates();
+        if(averageLength == null || cells.isEmpty()) {
+            return -1;
+        }
+        int low = 0;
+        int high = cells.size() - 1;
+        while(low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if(estimatedOffsetOf(mid) <= offset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
     public Val<Double> lengthOffsetEstimateProperty() {
         return lengthOffsetEstimate;
     }
 
     public double breadthFor(int itemIndex) {
         assert cells.isMemoized(itemIndex);
-        breadths.force(itemIndex, itemIndex + 1);
-        return breadthForCells.getValue();
+        if(!breadths.isKnown(itemIndex) && !lowDetail) {
+            breadths.set(itemIndex, minBreadthOf(cells.get(itemIndex)));
+            markDirty();
+        }
+        return getCellLayoutBreadth();
     }
 
     public void forgetSizeOf(int itemIndex) {
-        breadths.forget(itemIndex, itemIndex + 1);
-        lengths.forget(itemIndex, itemIndex + 1);
+        cells.getIfMemoized(itemIndex).ifPresent(cell -> {
+            forgetCellSize(cell);
+            Object key = sizeKeyOf.apply(cell);
+            if(key != null) {
+                lengthCache.forget(key);
+            }
+        });
+        breadths.forget(itemIndex);
+        forgetLength(itemIndex);
+    }
+
+    /**
+     * Forgets the size of the item at the given index, which was replaced without a change of the cells, and takes
+     * its category again
+     */
+    public void itemUpdatedInPlace(int itemIndex) {
+        if(categorizedLengths != null) {
+            categorizedLengths.recategorize(itemIndex, categoryOf.getValue());
+            markLengthsChanged();
+        }
+        forgetSizeOf(itemIndex);
+    }
+
+    /** Forgets the cached lengths of the given size key, for all breadths, e.g. because its item has changed */
+    public void forgetCachedLengths(Object sizeKey) {
+        lengthCache.forget(sizeKey);
+    }
+
+    /**
+     * Returns the index of the first item at or after the given index whose length is not known, or -1 if there
+     * is none
+     */
+    public int nextUnknownLength(int itemIndex) {
+        return lengths.nextUnknown(itemIndex);
+    }
+
+    /**
+     * Measures the length of the given item with a cell that is not displayed, unless it is known already.
+     * Does nothing and returns false while the breadth at which lengths are measured is about to change (see
+     * {@link #liveResizeDelay}), as the length would be forgotten right away.
+     *
+     * @param cell a cell that displays the item and whose node is in the scene, but not laid out by the viewport
+     * @param sizeKey the size key of the item, or null
+     */
+    public boolean measureLength(int itemIndex, Cell<?, ?> cell, Object sizeKey) {
+        updateLengthBreadth();
+        if(remeasureTimer != null) {
+            return false;
+        }
+        if(!lengths.isKnown(itemIndex)) {
+            double breadth = lengthBreadth;
+            double length = sizeKey == null
+                    ? orientation.prefLength(cell, breadth)
+                    : lengthCache.get(breadth, sizeKey, () -> orientation.prefLength(cell, breadth));
+            setLength(itemIndex, length);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the index of the first item at or after the given index whose length is known, or -1 if there
+     * is none
+     */
+    public int nextKnownLength(int itemIndex) {
+        return lengths.nextKnown(itemIndex);
+    }
+
+    /**
+     * Returns the breadth at which lengths are measured, or NaN while it is about to change (see
+     * {@link #liveResizeDelay}) or not known yet
+     */
+    public double getSettledLengthBreadth() {
+        updateLengthBreadth();
+        return remeasureTimer != null || !(lengthBreadth > 0) ? Double.NaN : lengthBreadth;
+    }
+
+    /**
+     * Returns a value that changes whenever lengths computed before can no longer be stored by item index,
+     * because the items or the breadth at which lengths are measured have changed
+     */
+    public long getLengthsGeneration() {
+        return lengthsGeneration;
+    }
+
+    /**
+     * Returns a value that grows whenever the length of a single item is forgotten, e.g. because its cell was
+     * updated in place, which does not change the {@link #getLengthsGeneration() generation}
+     */
+    public long getForgetCount() {
+        return forgetCount;
+    }
+
+    /**
+     * Stores lengths that were computed elsewhere, e.g. by a {@link LengthMeasurer}, for the items starting at
+     * the given index, unless their length is known already or the given length is NaN. Does nothing if the
+     * {@link #getLengthsGeneration() generation} of the lengths has changed since they were computed, and leaves
+     * out the items whose length has been forgotten since.
+     *
+     * @param forgetCount the {@link #getForgetCount() forget count} when the lengths started being computed
+     */
+    public void mergeLengths(long generation, long forgetCount, int fromItem, double[] computedLengths) {
+        if(generation != lengthsGeneration) {
+            return;
+        }
+        Guard g = suspendNotifications();
+        try {
+            for(int i = 0; i < computedLengths.length; ++i) {
+                if(!Double.isNaN(computedLengths[i]) && !lengths.isKnown(fromItem + i)
+                        && forgottenAt.getOrDefault(fromItem + i, 0L) <= forgetCount) {
+                    setLength(fromItem + i, computedLengths[i]);
+                }
+            }
+        } finally {
+            g.close();
+        }
+    }
+
+    /** Returns the length of the given item if it is known, NaN otherwise */
+    public double knownLengthOf(int itemIndex) {
+        return lengths.isKnown(itemIndex) ? lengths.get(itemIndex) : Double.NaN;
+    }
+
+    /** The fraction of the items whose length is known, 1.0 if there are no items */
+    public Val<Double> measuredLengthFractionProperty() {
+        return measuredLengthFraction;
+    }
+
+    /**
+     * Runs the given action on a later pulse after any change of the estimates, through which lengths may become
+     * known or unknown, e.g. when items are added or cells are laid out. The action also runs once after
+     * subscribing. Changes until the action runs are coalesced into a single run.
+     */
+    public Subscription observeLengthChanges(Runnable action) {
+        boolean[] pending = { false };
+        boolean[] subscribed = { true };
+        Runnable run = () -> {
+            pending[0] = false;
+            if(subscribed[0]) {
+                // reading the fraction makes it notify of its next invalidation
+                measuredLengthFraction.getValue();
+                action.run();
+            }
+        };
+        Runnable request = () -> {
+            if(!pending[0]) {
+                pending[0] = true;
+                Platform.runLater(run);
+            }
+        };
+        Subscription sub = measuredLengthFraction.observeInvalidations(oldFraction -> request.run());
+        request.run();
+        return sub.and(() -> subscribed[0] = false);
     }
 
     public double lengthFor(int itemIndex) {
+        updateLengthBreadth();
+        if(!lengths.isKnown(itemIndex)) {
+            if(lowDetail) {
+                return estimatedLengthOf(itemIndex);
+            }
+            setLength(itemIndex, prefLengthOf(cells.get(itemIndex), lengthBreadth));
+        }
         return lengths.get(itemIndex);
     }
 
+    /** Returns the estimated length of an item whose length is not known, for a low-detail cell */
+    private double estimatedLengthOf(int itemIndex) {
+        if(averageLength == null) {
+            // nothing to estimate from, the cell's own length is better than nothing
+            return prefLengthOf(cells.get(itemIndex), lengthBreadth);
+        }
+        return categorizedLengths == null
+                ? averageLength
+                : unknownLengthBefore(itemIndex + 1) - unknownLengthBefore(itemIndex);
+    }
+
+    /**
+     * Sets whether the present cells are low-detail stand-ins for their items, whose sizes are not those of the
+     * items. While they are, their breadths are not recorded, and the lengths of items that are not known are
+     * estimated rather than measured.
+     */
+    public void setLowDetail(boolean lowDetail) {
+        this.lowDetail = lowDetail;
+        markDirty();
+    }
+
+    public boolean isLowDetail() {
+        return lowDetail;
+    }
+
+    /** Returns the ratio of length lookups that did not need to measure a cell, or NaN if there were none */
+    public double getLengthCacheHitRate() {
+        return lengthCache.getHitRate();
+    }
+
+    /**
+     * Returns either the greatest minimum cell's node's breadth, among the cells that the
+     * {@link #breadthPolicy} takes into account, or the viewport's breadth
+     */
     public double getCellLayoutBreadth() {
-        return breadthForCells.getValue();
+        return Math.max(getMaxKnownMinBreadth(), getViewportBreadth());
     }
 }
@@ -0,0 +1,163 @@
+package org.fxmisc.flowless;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.layout.Region;
+
+/**
+ * The cell of a row of a tiled {@link VirtualFlow} (see {@link VirtualFlow#createVerticalTiled}), which displays the
+ * cells of the items in the row, the tiles, side by side at the tile breadth. The tiles are taken from, and given
+ * back to, a pool shared by all rows of the flow, so a tile outlives the rows that display it.
+ *
+ * @param <T> the type of the items
+ * @param <C> the type of the tiles
+ */
+public final class TileRow<T, C extends Cell<T, ?>> implements Cell<List<T>, Region> {
+
+    private final Tiling<T, C> tiling;
+    private final List<C> tiles = new ArrayList<>();
+    private final RowNode node = new RowNode();
+
+    private int index = -1;
+
+    TileRow(List<T> items, Tiling<T, C> tiling) {
+        this.tiling = tiling;
+        setTiles(items);
+    }
+
+    @Override
+    public Region getNode() {
+        return node;
+    }
+
+    /** Returns the cells of the items in the row, in the order of the items */
+    public List<C> getTiles() {
+        return Collections.unmodifiableList(tiles);
+    }
+
+    /** Returns the index of the row, or -1 if it is not known yet */
+    public int getIndex() {
+        return index;
+    }
+
+    /** Returns the index of the row's first item, or -1 if it is not known yet */
+    public int getFirstItemIndex() {
+        return index < 0 ? -1 : index * tiling.getTilesPerRow();
+    }
+
+    @Override
+    public boolean isReusable() {
+        return true;
+    }
+
+    @Override
+    public void updateItem(List<T> items) {
+        releaseTiles();
+        setTiles(items);
+        updateTileIndices();
+    }
+
+    @Override
+    public void updateIndex(int index) {
+        this.index = index;
+        updateTileIndices();
+        node.requestLayout();
+    }
+
+    @Override
+    public void reset() {
+        releaseTiles();
+    }
+
+    @Override
+    public void dispose() {
+        releaseTiles();
+    }
+
+    private void setTiles(List<T> items) {
+        for(T item: items) {
+            C tile = tiling.getTile(item);
+            tiles.add(tile);
+            node.add(tile.getNode());
+        }
+    }
+
+    private void releaseTiles() {
+        node.clear();
+        for(C tile: tiles) {
+            tiling.releaseTile(tile);
+        }
+        tiles.clear();
+    }
+
+    private void updateTileIndices() {
+        int first = getFirstItemIndex();
+        if(first >= 0) {
+            for(int i = 0; i < tiles.size(); ++i) {
+                tiles.get(i).updateIndex(first + i);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TileRow(" + index + ": " + tiles + ")";
+    }
+
+    private final class RowNode extends Region {
+
+        void add(Node tile) {
+            getChildren().add(tile);
+        }
+
+        void clear() {
+            getChildren().clear();
+        }
+
+        private boolean isVertical() {
+            return tiling.getOrientation().getContentBias() == Orientation.HORIZONTAL;
+        }
+
+        private double prefBreadth() {
+            for(Node tile: getChildren()) {
+                tiling.measureBreadth(tile);
+            }
+            return getChildren().size() * tiling.getTileBreadth();
+        }
+
+        private double prefLength() {
+            prefBreadth();
+            int first = getFirstItemIndex();
+            double length = 0.0;
+            for(int i = 0; i < getChildren().size(); ++i) {
+                Node tile = getChildren().get(i);
+                length = Math.max(length, tiling.lengthOf(first < 0 ? -1 : first + i, tile));
+            }
+            return length;
+        }
+
+        @Override
+        protected double computePrefWidth(double height) {
+            return isVertical() ? prefBreadth() : prefLength();
+        }
+
+        @Override
+        protected double computePrefHeight(double width) {
+            return isVertical() ? prefLength() : prefBreadth();
+        }
+
+        @Override
+        protected void layoutChildren() {
+            OrientationHelper orientation = tiling.getOrientation();
+            double breadth = tiling.getTileBreadth();
+            double length = orientation.length(getLayoutBounds());
+            for(int i = 0; i < getChildren().size(); ++i) {
+                orientation.resizeRelocate(getChildren().get(i), i * breadth, 0.0, breadth, length);
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package org.fxmisc.flowless;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.layout.Region;
+
+import org.reactfx.util.Lists;
+
+/**
+ * Wraps the items of a tiled {@link VirtualFlow} into {@link #getRows() rows} of as many tiles as fit into the
+ * breadth of the viewport, so that the flow virtualizes by rows. The cells of the items, the tiles, are kept in a
+ * pool shared by all {@link TileRow}s, and their lengths are kept by item index, so that neither are lost when the
+ * number of tiles per row changes and all rows are replaced.
+ *
+ * <p>
+ *     All tiles are laid out at the same breadth, the greatest preferred breadth of the tiles measured so far. The
+ *     length of a tile is measured once, when it is first displayed, and kept until its item is replaced or the tile
+ *     breadth changes.
+ * </p>
+ */
+final class Tiling<T, C extends Cell<T, ?>> {
+
+    private final ObservableList<T> items;
+    private final CellPool<T, C> pool;
+    private final OrientationHelper orientation;
+
+    /** The lengths of the tiles at the tile breadth, by item index */
+    private final SizeStore tileLengths = new SizeStore(false);
+
+    private final Rows rows = new Rows();
+    private final ListChangeListener<T> itemsListener = this::itemsChanged;
+    private final InvalidationListener breadthListener = obs -> updateTilesPerRow();
+
+    private Region viewport = null;
+
+    /** The greatest preferred breadth of the tiles measured so far, or 0 if none has been */
+    private double tileBreadth = 0.0;
+
+    private int tilesPerRow = 1;
+    private int itemCount;
+    private boolean updatePending = false;
+
+    /** Whether the tile breadth changed since the rows were last replaced */
+    private boolean tileBreadthChanged = false;
+
+    Tiling(ObservableList<T> items, Function<? super T, ? extends C> cellFactory, OrientationHelper orientation) {
+        this.items = items;
+        this.pool = new CellPool<>(cellFactory);
+        this.orientation = orientation;
+        this.itemCount = items.size();
+        tileLengths.replace(0, 0, itemCount);
+        items.addListener(itemsListener);
+    }
+
+    /** Makes the number of tiles per row follow the breadth of the given viewport */
+    void attach(Region viewport) {
+        this.viewport = viewport;
+        viewport.layoutBoundsProperty().addListener(breadthListener);
+        updateTilesPerRow();
+    }
+
+    public void dispose() {
+        items.removeListener(itemsListener);
+        if(viewport != null) {
+            viewport.layoutBoundsProperty().removeListener(breadthListener);
+        }
+        pool.dispose();
+    }
+
+    /** The rows of items that the flow displays */
+    public ObservableList<List<T>> getRows() {
+        return rows;
+    }
+
+    public OrientationHelper getOrientation() {
+        return orientation;
+    }
+
+    public int getTilesPerRow() {
+        return tilesPerRow;
+    }
+
+    public double getTileBreadth() {
+        return tileBreadth;
+    }
+
+    C getTile(T item) {
+        return pool.getCell(item);
+    }
+
+    void releaseTile(C tile) {
+        pool.acceptCell(tile);
+    }
+
+    /**
+     * Measures the preferred breadth of the given tile, and makes it the tile breadth if it is greater, in which
+     * case the rows are laid out again, with the number of tiles per row updated, after the current pulse
+     */
+    void measureBreadth(Node tile) {
+        double breadth = orientation.prefBreadth(tile);
+        if(breadth > tileBreadth) {
+            tileBreadth = breadth;
+            tileBreadthChanged = true;
+            tileLengths.forgetAll();
+            if(!updatePending) {
+                updatePending = true;
+                Platform.runLater(this::updateTilesPerRow);
+            }
+        }
+    }
+
+    /**
+     * Returns the length of the tile of the item at the given index, measuring it if it is not known or if the tile
+     * needs layout, in which case its size may have changed, e.g. because its content was loaded
+     */
+    double lengthOf(int itemIndex, Node tile) {
+        if(itemIndex < 0 || itemIndex >= tileLengths.size()) {
+            return orientation.prefLength(tile, tileBreadth);
+        } else if(!tileLengths.isKnown(itemIndex) || tile instanceof Parent && ((Parent) tile).isNeedsLayout()) {
+            tileLengths.set(itemIndex, orientation.prefLength(tile, tileBreadth));
+        }
+        return tileLengths.get(itemIndex);
+    }
+
+    private void updateTilesPerRow() {
+        updatePending = false;
+        double breadth = viewport == null ? 0.0 : orientation.breadth(viewport);
+        int n = tileBreadth > 0.0 ? Math.max(1, (int) (breadth / tileBreadth)) : 1;
+        if(n != tilesPerRow || tileBreadthChanged) {
+            int oldRowCount = rows.size();
+            tilesPerRow = n;
+            tileBreadthChanged = false;
+            rows.changed(0, oldRowCount, rows.size());
+        }
+    }
+
+    private int rowCount(int itemCount) {
+        return (itemCount + tilesPerRow - 1) / tilesPerRow;
+    }
+
+    private void itemsChanged(ListChangeListener.Change<? extends T> ch) {
+        int oldRowCount = rowCount(itemCount);
+        int firstRow = Integer.MAX_VALUE;
+        int endRow = 0;
+        boolean shifted = false;
+        while(ch.next()) {
+            int from = ch.getFrom();
+            if(ch.wasPermutated() || ch.wasUpdated()) {
+                tileLengths.replace(from, ch.getTo() - from, ch.getTo() - from);
+                endRow = Math.max(endRow, rowCount(ch.getTo()));
+            } else {
+                tileLengths.replace(from, ch.getRemovedSize(), ch.getAddedSize());
+                shifted |= ch.getRemovedSize() != ch.getAddedSize();
+                endRow = Math.max(endRow, rowCount(from + ch.getAddedSize()));
+            }
+            firstRow = Math.min(firstRow, from / tilesPerRow);
+        }
+        itemCount = items.size();
+        if(firstRow == Integer.MAX_VALUE) {
+            return;
+        }
+
+        // inserting or removing items moves the items of all rows that follow
+        int newRowCount = rowCount(itemCount);
+        if(shifted || newRowCount != oldRowCount) {
+            rows.changed(firstRow, oldRowCount - firstRow, newRowCount - firstRow);
+        } else {
+            rows.changed(firstRow, endRow - firstRow, endRow - firstRow);
+        }
+    }
+
+    /**
+     * The rows of the items, each of which is a snapshot of the items in the row. The rows that a change removes are
+     * not reported, only their number.
+     */
+    private final class Rows extends ObservableListBase<List<T>> {
+
+        @Override
+        public List<T> get(int index) {
+            Lists.checkIndex(index, size());
+            int from = index * tilesPerRow;
+            int to = Math.min(from + tilesPerRow, items.size());
+            return Collections.unmodifiableList(new ArrayList<>(items.subList(from, to)));
+        }
+
+        @Override
+        public int size() {
+            return rowCount(items.size());
+        }
+
+        void changed(int from, int removedSize, int addedSize) {
+            if(removedSize == 0 && addedSize == 0) {
+                return;
+            }
+            beginChange();
+            nextReplace(from, from + addedSize, Collections.<List<T>>nCopies(removedSize, Collections.emptyList()));
+            endChange();
+        }
+    }
+}
@@ -1,12 +1,19 @@
 package org.fxmisc.flowless;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.ObservableList;
 import javafx.css.CssMetaData;
 import javafx.css.StyleConverter;
@@ -20,6 +27,8 @@ import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.Region;
 import javafx.scene.shape.Rectangle;
 
+import org.reactfx.EventSource;
+import org.reactfx.Guard;
 import org.reactfx.collection.MemoizationList;
 import org.reactfx.util.Lists;
 import org.reactfx.value.Val;
@@ -78,6 +87,63 @@ public class VirtualFlow<T, C extends Cell<T, ?>> extends Region implements Virt
         REAR
     }
 
+    /**
+     * Determines what the {@link #lengthOffsetEstimateProperty() offset} and the
+     * {@link #totalLengthEstimateProperty() total length} of the content, and thus a scroll bar in the direction
+     * of the length, stand for
+     */
+    public static enum ScrollbarMode {
+        /**
+         * The offset and total length are in pixels, estimated from the lengths of the items measured so far
+         */
+        PIXEL,
+        /**
+         * The offset is the position of the viewport in items: the index of the first visible item plus the
+         * fraction of it that is scrolled out of view, and the total length is the number of items. Both are
+         * scaled by the viewport's length divided by the number of visible items, so that a scroll bar's thumb
+         * is as long, relative to the track, as the visible items are relative to all items. Neither depends on
+         * the lengths of items that are not displayed, and jumping to an offset takes no estimating.
+         */
+        INDEX
+    }
+
+    /**
+     * Determines how the length of an item whose cell has not been measured yet is estimated from the lengths
+     * of the items that have been measured
+     */
+    public static enum LengthStatistic {
+        /** The mean of the measured lengths */
+        MEAN,
+        /** The median of the measured lengths, which a few items of very different length do not move */
+        MEDIAN,
+        /** The mean of the measured lengths without the shortest and the longest tenth of them */
+        TRIMMED_MEAN
+    }
+
+    /**
+     * Determines the breadth at which the cells are laid out, which is also the
+     * {@link #totalBreadthEstimateProperty() total breadth} of the content. The cells are never laid out narrower
+     * than the viewport.
+     */
+    public static enum BreadthPolicy {
+        /**
+         * Lays out the cells at the greatest minimum breadth of all cells measured so far, so that the content
+         * does not get narrower when a wide cell is scrolled out of view. Removing an item, or a change of its
+         * cell's size, takes its breadth out of account.
+         */
+        MAX_SEEN,
+        /**
+         * Lays out the cells at the greatest minimum breadth of the cells currently in the viewport, so that the
+         * content fits the visible cells as the viewport is scrolled.
+         */
+        MAX_VISIBLE,
+        /**
+         * Lays out the cells at the breadth of the viewport, regardless of their minimum breadth, so that the
+         * content never scrolls in the direction of the breadth.
+         */
+        FIT_VIEWPORT
+    }
+
     /**
      * Creates a viewport that lays out content horizontally from left to right
      */
@@ -116,12 +182,89 @@ public class VirtualFlow<T, C extends Cell<T, ?>> extends Region implements Virt
         return new VirtualFlow<>(items, cellFactory, new VerticalHelper(), gravity);
     }
 
+    /**
+     * Creates a viewport that lays out its items vertically from top to bottom, like
+     * {@link #createVertical(ObservableList, Function)}, but draws them with the given renderer on a canvas
+     * instead of displaying each of them with nodes
+     */
+    public static <T> VirtualFlow<T, RenderedCell<T>> createVerticalRendered(
+            ObservableList<T> items,
+            CellRenderer<? super T> renderer) {
+        CellCanvas<T> canvas = new CellCanvas<>(renderer);
+        VirtualFlow<T, RenderedCell<T>> flow = new VirtualFlow<>(
+                items, item -> new RenderedCell<>(item, renderer, true, canvas::requestPaint),
+                new VerticalHelper(), Gravity.FRONT);
+        flow.setCellCanvas(canvas);
+        return flow;
+    }
+
+    /**
+     * Creates a viewport that lays out its items horizontally from left to right, like
+     * {@link #createHorizontal(ObservableList, Function)}, but draws them with the given renderer on a canvas
+     * instead of displaying each of them with nodes
+     */
+    public static <T> VirtualFlow<T, RenderedCell<T>> createHorizontalRendered(
+            ObservableList<T> items,
+            CellRenderer<? super T> renderer) {
+        CellCanvas<T> canvas = new CellCanvas<>(renderer);
+        VirtualFlow<T, RenderedCell<T>> flow = new VirtualFlow<>(
+                items, item -> new RenderedCell<>(item, renderer, false, canvas::requestPaint),
+                new HorizontalHelper(), Gravity.FRONT);
+        flow.setCellCanvas(canvas);
+        return flow;
+    }
+
+    /**
+     * Creates a viewport that lays out its items from left to right in rows of as many items as fit into its
+     * width, and the rows from top to bottom. The viewport virtualizes by rows: its items are the rows, each of
+     * which is displayed by a {@link TileRow} that holds the cells of the items in the row. The cells of the items
+     * are pooled across rows, and their heights are kept by item, so that neither are lost when the viewport is
+     * resized and the number of items per row changes.
+     */
+    public static <T, C extends Cell<T, ?>> VirtualFlow<List<T>, TileRow<T, C>> createVerticalTiled(
+            ObservableList<T> items,
+            Function<? super T, ? extends C> cellFactory) {
+        return createTiled(items, cellFactory, new VerticalHelper());
+    }
+
+    /**
+     * Creates a viewport that lays out its items from top to bottom in columns of as many items as fit into its
+     * height, and the columns from left to right, like {@link #createVerticalTiled(ObservableList, Function)} does
+     * with rows
+     */
+    public static <T, C extends Cell<T, ?>> VirtualFlow<List<T>, TileRow<T, C>> createHorizontalTiled(
+            ObservableList<T> items,
+            Function<? super T, ? extends C> cellFactory) {
+        return createTiled(items, cellFactory, new HorizontalHelper());
+    }
+
+    private static <T, C extends Cell<T, ?>> VirtualFlow<List<T>, TileRow<T, C>> createTiled(
+            ObservableList<T> items,
+            Function<? super T, ? extends C> cellFactory,
+            OrientationHelper orientation) {
+        Tiling<T, C> tiling = new Tiling<>(items, cellFactory, orientation);
+        VirtualFlow<List<T>, TileRow<T, C>> flow = new VirtualFlow<>(
+                tiling.getRows(), row -> new TileRow<>(row, tiling), orientation, Gravity.FRONT);
+        flow.tiling = tiling;
+        tiling.attach(flow);
+        return flow;
+    }
+
     private final ObservableList<T> items;
     private final OrientationHelper orientation;
     private final CellListManager<T, C> cellListManager;
     private final SizeTracker sizeTracker;
     private final CellPositioner<T, C> cellPositioner;
     private final Navigator<T, C> navigator;
+    private final BackgroundMeasurer<T, C> backgroundMeasurer;
+    private final ParallelMeasurer<T> parallelMeasurer;
+    private SizeIndexLoader sizeIndexLoader = null;
+
+    /** The canvas on which the items are drawn, if the cells are {@link RenderedCell}s, or null */
+    private CellCanvas<?> cellCanvas = null;
+
+    /** Wraps the items into rows if this is a tiled viewport, or null */
+    private Tiling<?, ?> tiling = null;
 
     private final StyleableObjectProperty<Gravity> gravity = new StyleableObjectProperty<Gravity>()
     {
@@ -144,6 +287,35 @@ public class VirtualFlow<T, C extends Cell<T, ?>> extends Region implements Virt
         }
     };
 
+    private final ObjectProperty<Function<? super T, ?>> itemKey = new SimpleObjectProperty<>(this, "itemKey");
+    private final ObjectProperty<Function<? super T, ?>> sizeKey = new SimpleObjectProperty<>(this, "sizeKey");
+    private final ObjectProperty<Duration> liveResizeDelay =
+            new SimpleObjectProperty<>(this, "liveResizeDelay", Duration.ZERO);
+    private final ObjectProperty<BreadthPolicy> breadthPolicy =
+            new SimpleObjectProperty<>(this, "breadthPolicy", BreadthPolicy.MAX_SEEN);
+    private final ObjectProperty<Function<? super T, ?>> lengthCategory =
+            new SimpleObjectProperty<>(this, "lengthCategory");
+    private final ObjectProperty<LengthStatistic> lengthStatistic =
+            new SimpleObjectProperty<>(this, "lengthStatistic", LengthStatistic.MEAN);
+    private final ObjectProperty<Duration> backgroundMeasurementBudget =
+            new SimpleObjectProperty<>(this, "backgroundMeasurementBudget", Duration.ZERO);
+    private final ObjectProperty<LengthMeasurer<? super T>> lengthMeasurer =
+            new SimpleObjectProperty<>(this, "lengthMeasurer");
+    private final ObjectProperty<ScrollbarMode> scrollbarMode =
+            new SimpleObjectProperty<>(this, "scrollbarMode", ScrollbarMode.PIXEL);
+    private final DoubleProperty effectiveScale = new SimpleDoubleProperty(this, "effectiveScale", 1.0);
+    private final ObjectProperty<Function<? super T, ? extends C>> lowDetailCellFactory =
+            new SimpleObjectProperty<>(this, "lowDetailCellFactory");
+    private final DoubleProperty lowDetailThreshold = new SimpleDoubleProperty(this, "lowDetailThreshold", 0.0);
+    private final ObjectProperty<Predicate<? super T>> sectionStart =
+            new SimpleObjectProperty<>(this, "sectionStart");
+
+    /** The factory of the low-detail cells that are displayed, or null if the regular cells are displayed */
+    private Function<? super T, ? extends C> lowDetailCellFactoryInUse = null;
+
+    /** Emits after each layout pass */
+    private final EventSource<Void> laidOut = new EventSource<>();
+
     // non-negative
     private final Var<Double> breadthOffset0 = Var.newSimpleVar(0.0);
     private final Var<Double> breadthOffset = breadthOffset0.asVar(this::setBreadthOffset);
@@ -155,6 +327,8 @@ public class VirtualFlow<T, C extends Cell<T, ?>> extends Region implements Virt
         return sizeTracker.maxCellBreadthProperty();
     }
 
+    private final Val<Double> totalLengthEstimate;
+
     private final Var<Double> lengthOffsetEstimate;
     public Var<Double> lengthOffsetEstimateProperty() {
         return lengthOffsetEstimate;
@@ -168,19 +342,53 @@ public class VirtualFlow<T, C extends Cell<T, ?>> extends Region implements Virt
         this.getStyleClass().add("virtual-flow");
         this.items = items;
         this.orientation = orientation;
-        this.cellListManager = new CellListManager<>(this, items, cellFactory);
+        this.cellListManager = new CellListManager<>(this, items, cellFactory, itemKey);
         this.gravity.set(gravity);
         MemoizationList<C> cells = cellListManager.getLazyCellList();
-        this.sizeTracker = new SizeTracker(orientation, layoutBoundsProperty(), cells);
+        this.sizeTracker = new SizeTracker(
+                orientation, layoutBoundsProperty(), cells, cellListManager.releasedCells(), this::sizeKeyOf,
+                liveResizeDelay, breadthPolicy,
+                Val.map(lengthCategory, category -> i -> category.apply(items.get(i))),
+                lengthStatistic);
         this.cellPositioner = new CellPositioner<>(cellListManager, orientation, sizeTracker);
-        this.navigator = new Navigator<>(cellListManager, cellPositioner, orientation, this.gravity, sizeTracker);
+        this.navigator = new Navigator<>(
+                cellListManager, cellPositioner, orientation, this.gravity, sizeTracker, sectionStart);
+        cellListManager.itemsSetAgain().subscribe(item -> {
+            Object key = sizeKeyOfItem(item);
+            if(key != null) {
+                sizeTracker.forgetCachedLengths(key);
+            }
+        });
+
+        // lay out the cells again once they have been measured at a new breadth
+        sizeTracker.deferredRemeasurements().subscribe(breadth -> navigator.requestLayout());
+        breadthPolicy.addListener((obs, oldPolicy, newPolicy) -> navigator.requestLayout());
+        lengthCategory.addListener((obs, oldCategory, newCategory) -> navigator.requestLayout());
+        lengthStatistic.addListener((obs, oldStatistic, newStatistic) -> navigator.requestLayout());
+        InvalidationListener detailListener = obs -> updateDetailLevel();
+        effectiveScale.addListener(detailListener);
+        lowDetailCellFactory.addListener(detailListener);
+        lowDetailThreshold.addListener(detailListener);
 
-        getChildren().add(navigator);
+        this.backgroundMeasurer = new BackgroundMeasurer<>(
+                this, items, cellListManager, sizeTracker, this::sizeKeyOfItem, backgroundMeasurementBudget);
+
+        this.parallelMeasurer = new ParallelMeasurer<>(items, sizeTracker, lengthMeasurer);
+
+        getChildren().addAll(navigator, navigator.getStickyHeaderPane(), backgroundMeasurer.getMeasuringPane());
         clipProperty().bind(Val.map(
                 layoutBoundsProperty(),
                 b -> new Rectangle(b.getWidth(), b.getHeight())));
 
-        lengthOffsetEstimate = sizeTracker.lengthOffsetEstimateProperty().asVar(this::setLengthOffset);
+        Val<Double> indexTotalLength = Val.create(() -> items.size() * indexUnit(), laidOut);
+        Val<Double> indexLengthOffset = Val.create(() -> firstVisiblePosition() * indexUnit(), laidOut);
+        totalLengthEstimate = Val.flatMap(scrollbarMode, mode -> mode == ScrollbarMode.INDEX
+                ? indexTotalLength
+                : sizeTracker.totalLengthEstimateProperty());
+        lengthOffsetEstimate = Val.flatMap(scrollbarMode, mode -> mode == ScrollbarMode.INDEX
+                ? indexLengthOffset
+                : sizeTracker.lengthOffsetEstimateProperty())
+                .asVar(this::setLengthOffset);
 
         // scroll content by mouse scroll
         this.addEventHandler(ScrollEvent.ANY, se -> {
@@ -191,9 +399,17 @@ public class VirtualFlow<T, C extends Cell<T, ?>> extends Region implements Virt
     }
 
     public void dispose() {
+        backgroundMeasurer.dispose();
+        parallelMeasurer.dispose();
+        if(sizeIndexLoader != null) {
+            sizeIndexLoader.stop();
+        }
         navigator.dispose();
         sizeTracker.dispose();
         cellListManager.dispose();
+        if(tiling != null) {
+            tiling.dispose();
+        }
     }
 
     /**
@@ -232,7 +448,7 @@ public class VirtualFlow<T, C extends Cell<T, ?>> extends Region implements Virt
     }
 
     public Val<Double> totalLengthEstimateProperty() {
-        return sizeTracker.totalLengthEstimateProperty();
+        return totalLengthEstimate;
     }
 
     public Bounds cellToViewport(C cell, Bounds bounds) {
@@ -250,14 +466,20 @@ public class VirtualFlow<T, C extends Cell<T, ?>> extends Region implements Virt
     @Override
     protected void layoutChildren() {
 
-        // navigate to the target position and fill viewport
-        while(true) {
-            double oldLayoutBreadth = sizeTracker.getCellLayoutBreadth();
-            orientation.resize(navigator, oldLayoutBreadth, sizeTracker.getViewportLength());
-            navigator.layout();
-            if(oldLayoutBreadth == sizeTracker.getCellLayoutBreadth()) {
-                break;
+        // navigate to the target position and fill viewport,
+        // notifying observers of the size estimates once it is done
+        Guard g = sizeTracker.suspendNotifications();
+        try {
+            while(true) {
+                double oldLayoutBreadth = sizeTracker.getCellLayoutBreadth();
+                orientation.resize(navigator, oldLayoutBreadth, sizeTracker.getViewportLength());
+                navigator.layout();
+                if(oldLayoutBreadth == sizeTracker.getCellLayoutBreadth()) {
+                    break;
+                }
             }
+        } finally {
+            g.close();
         }
 
         double viewBreadth = orientation.breadth(this);
@@ -273,6 +495,23 @@ public class VirtualFlow<T, C extends Cell<T, ?>> extends Region implements Virt
         } else {
             orientation.relocate(navigator, -breadthOffset0.getValue(), 0);
         }
+        navigator.getStickyHeaderPane().relocate(navigator.getLayoutX(), navigator.getLayoutY());
+
+        if(cellCanvas != null) {
+            cellCanvas.resize(getWidth(), getHeight());
+        }
+
+        laidOut.push(null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <U> void setCellCanvas(CellCanvas<U> canvas) {
+        cellCanvas = canvas;
+        canvas.attach(
+                navigator,
+                (List<RenderedCell<U>>) cellListManager.getLazyCellList().memoizedItems(),
+                () -> (RenderedCell<U>) navigator.getStickyHeader());
+        getChildren().add(0, canvas.getCanvas());
     }
 
     @Override
@@ -313,7 +552,11 @@ public class VirtualFlow<T, C extends Cell<T, ?>> extends Region implements Virt
     }
 
     void scrollLength(double deltaLength) {
-        setLengthOffset(lengthOffsetEstimate.getValue() + deltaLength);
+        if(scrollbarMode.get() == ScrollbarMode.INDEX) {
+            navigator.scrollCurrentPositionBy(deltaLength);
+        } else {
+            setLengthOffset(lengthOffsetEstimate.getValue() + deltaLength);
+        }
     }
 
     void scrollBreadth(double deltaBreadth) {
@@ -506,6 +749,45 @@ public class VirtualFlow<T, C extends Cell<T, ?>> extends Region implements Virt
         return navigator.getLastVisibleIndex();
     }
     
+    /**
+     * Saves the lengths of the items measured so far, along with the first visible item and its offset, to the
+     * given index, replacing what it held before.
+     *
+     * @see #restoreFrom(SizeIndex)
+     */
+    public void saveTo(SizeIndex index) throws IOException {
+        layout();
+        double breadth = sizeTracker.getSettledLengthBreadth();
+        int first = items.isEmpty() ? -1 : getFirstVisibleIndex();
+        double offset = getCellIfVisible(first).map(orientation::minY).orElse(0.0);
+        index.save(
+                items.size(), breadth, first, offset,
+                Double.isNaN(breadth) ? i -> Double.NaN : sizeTracker::knownLengthOf);
+    }
+
+    /**
+     * Restores what was {@link #saveTo(SizeIndex) saved} to the given index, if it was saved for as many items as
+     * there are: shows the item that was the first visible one where it was, and loads the lengths of the items,
+     * so that the scroll bars are exact without measuring the items. The lengths are loaded once the viewport is
+     * laid out, and only if the cells are laid out at the breadth that the lengths were saved for.
+     *
+     * @return whether the index was saved for as many items as there are
+     */
+    public boolean restoreFrom(SizeIndex index) {
+        if(index.getItemCount() != items.size()) {
+            return false;
+        }
+        if(sizeIndexLoader != null) {
+            sizeIndexLoader.stop();
+        }
+        sizeIndexLoader = new SizeIndexLoader(index, items, sizeTracker);
+        int first = index.getFirstVisibleItem();
+        if(first >= 0) {
+            showAtOffset(first, index.getFirstVisibleOffset());
+        }
+        return true;
+    }
+
     private void showBreadthRegion(double fromX, double toX) {
         double bOff = breadthOffset0.getValue();
         double spaceBefore = fromX - bOff;
@@ -520,6 +802,11 @@ public class VirtualFlow<T, C extends Cell<T, ?>> extends Region implements Virt
     }
 
     void setLengthOffset(double pixels) {
+        if(scrollbarMode.get() == ScrollbarMode.INDEX) {
+            jumpToIndexPosition(pixels / indexUnit());
+            return;
+        }
+
         double total = totalLengthEstimateProperty().getOrElse(0.0);
         double length = sizeTracker.getViewportLength();
         double max = Math.max(total - length, 0);
@@ -555,6 +842,54 @@ public class VirtualFlow<T, C extends Cell<T, ?>> extends Region implements Virt
         }
     }
 
+    /**
+     * Returns the position of the start of the viewport in items (at the time of the last layout): the index of
+     * the first visible item plus the fraction of it that is before the viewport
+     */
+    private double firstVisiblePosition() {
+        int first = getFirstVisibleIndex();
+        return cellPositioner.getCellIfVisible(first)
+                .map(cell -> first + fractionBefore(cell, 0.0))
+                .orElse(0.0);
+    }
+
+    /** Returns the number of visible items (at the time of the last layout), counting partly visible ones in part */
+    private double visibleItemCount() {
+        int last = getLastVisibleIndex();
+        double end = cellPositioner.getCellIfVisible(last)
+                .map(cell -> last + fractionBefore(cell, sizeTracker.getViewportLength()))
+                .orElse(0.0);
+        return end - firstVisiblePosition();
+    }
+
+    /** Returns the fraction of the given cell that is before the given offset into the viewport */
+    private double fractionBefore(C cell, double offset) {
+        double length = orientation.length(cell);
+        return length > 0 ? Math.max(0.0, Math.min(1.0, (offset - orientation.minY(cell)) / length)) : 0.0;
+    }
+
+    /** The length that one item stands for in {@link ScrollbarMode#INDEX} */
+    private double indexUnit() {
+        double count = visibleItemCount();
+        return count > 0 ? sizeTracker.getViewportLength() / count : 1.0;
+    }
+
+    private void jumpToIndexPosition(double position) {
+        if(items.isEmpty()) {
+            return;
+        }
+        double max = Math.max(items.size() - visibleItemCount(), 0.0);
+        position = Math.max(0.0, Math.min(position, max));
+        if(position == firstVisiblePosition()) {
+            return;
+        }
+
+        // sizing the one cell that the position falls into is all it takes to place it
+        int first = Math.min((int) position, items.size() - 1);
+        double length = orientation.length(cellPositioner.getSizedCell(first));
+        navigator.setTargetPosition(new StartOffStart(first, -(position - first) * length));
+    }
+
     private void jumpToAbsolutePosition(double pixels) {
         if(items.isEmpty()) {
             return;
@@ -563,10 +898,10 @@ public class VirtualFlow<T, C extends Cell<T, ?>> extends Region implements Virt
         // guess the first visible cell and its offset in the viewport
         double avgLen = sizeTracker.getAverageLengthEstimate().orElse(0.0);
         if(avgLen == 0.0) return;
-        int first = (int) Math.floor(pixels / avgLen);
-        double firstOffset = -(pixels % avgLen);
+        int first = sizeTracker.estimatedItemIndexAt(pixels);
+        double firstOffset = sizeTracker.estimatedOffsetOf(first) - pixels;
 
-        if(first < items.size()) {
+        if(pixels < sizeTracker.totalLengthEstimateProperty().getValue()) {
             navigator.setTargetPosition(new StartOffStart(first, firstOffset));
         } else {
             navigator.setTargetPosition(new EndOffEnd(items.size() - 1, 0.0));
@@ -599,6 +934,335 @@ public class VirtualFlow<T, C extends Cell<T, ?>> extends Region implements Virt
         this.gravity.set(gravity);
     }
 
+    /**
+     * The key by which items are told apart when a range of items is replaced, e.g. by
+     * {@link ObservableList#setAll(java.util.Collection)}. When set, the replacement is reduced to the items that
+     * were actually removed, added or changed: items that have the same key and are {@link Object#equals(Object)
+     * equal} as before keep their cells and sizes, and the viewport stays where it is. Items that have the same
+     * key but are not equal are replaced one by one. Null by default, in which case the whole range is replaced.
+     */
+    public ObjectProperty<Function<? super T, ?>> itemKeyProperty()
+    {
+        return itemKey;
+    }
+
+    public Function<? super T, ?> getItemKey()
+    {
+        return itemKey.get();
+    }
+
+    public void setItemKey(Function<? super T, ?> itemKey)
+    {
+        this.itemKey.set(itemKey);
+    }
+
+    /**
+     * The key under which the measured length of an item's cell is cached. Items with equal size keys are
+     * expected to have cells of the same length, so an item whose cell is created again, or that has the same
+     * size key as an item measured before (e.g. repeated lines of text), is sized without laying out its cell.
+     * Null by default, in which case lengths are not cached beyond the cells that are displayed.
+     * An item that is set again at its own index, e.g. after it was changed, has the lengths of its size key
+     * forgotten.
+     * Lengths are cached for a few recently used breadths, so that resizing back to
+     * a breadth that was used before (e.g. toggling a side panel) does not need measuring either.
+     *
+     * @see #getLengthCacheHitRate()
+     */
+    public ObjectProperty<Function<? super T, ?>> sizeKeyProperty()
+    {
+        return sizeKey;
+    }
+
+    public Function<? super T, ?> getSizeKey()
+    {
+        return sizeKey.get();
+    }
+
+    public void setSizeKey(Function<? super T, ?> sizeKey)
+    {
+        this.sizeKey.set(sizeKey);
+    }
+
+    /**
+     * Returns the ratio of cell length lookups that were answered by the length cache instead of laying out
+     * a cell, or NaN if no length has been looked up yet.
+     *
+     * @see #sizeKeyProperty()
+     */
+    public double getLengthCacheHitRate() {
+        return sizeTracker.getLengthCacheHitRate();
+    }
+
+    /**
+     * How long the breadth of the viewport has to stay the same, e.g. while the window is being resized, before
+     * the cells are measured for the new breadth. Until then, the cells are laid out with the new breadth, but
+     * with their lengths for the previous breadth, so they may appear stretched or clipped. This saves measuring
+     * the cells at every intermediate breadth of a resize. {@link Duration#ZERO} (the default) disables this, so
+     * the cells are measured right away.
+     */
+    public ObjectProperty<Duration> liveResizeDelayProperty()
+    {
+        return liveResizeDelay;
+    }
+
+    public Duration getLiveResizeDelay()
+    {
+        return liveResizeDelay.get();
+    }
+
+    public void setLiveResizeDelay(Duration liveResizeDelay)
+    {
+        this.liveResizeDelay.set(liveResizeDelay);
+    }
+
+    /**
+     * The breadth at which the cells are laid out, see {@link BreadthPolicy}. {@link BreadthPolicy#MAX_SEEN}
+     * by default.
+     */
+    public ObjectProperty<BreadthPolicy> breadthPolicyProperty()
+    {
+        return breadthPolicy;
+    }
+
+    public BreadthPolicy getBreadthPolicy()
+    {
+        return breadthPolicy.get();
+    }
+
+    public void setBreadthPolicy(BreadthPolicy breadthPolicy)
+    {
+        this.breadthPolicy.set(breadthPolicy);
+    }
+
+    /**
+     * The category of an item's length, e.g. whether it is a header or a row. The length of an item whose cell
+     * has not been measured yet is estimated from the measured lengths of the items of the same category, so that
+     * lists that mix items of very different lengths get estimates (and scroll bars) that do not change much as
+     * different parts of the list are visited. Null by default, in which case all items are estimated alike.
+     *
+     * @see #lengthStatisticProperty()
+     */
+    public ObjectProperty<Function<? super T, ?>> lengthCategoryProperty()
+    {
+        return lengthCategory;
+    }
+
+    public Function<? super T, ?> getLengthCategory()
+    {
+        return lengthCategory.get();
+    }
+
+    public void setLengthCategory(Function<? super T, ?> lengthCategory)
+    {
+        this.lengthCategory.set(lengthCategory);
+    }
+
+    /**
+     * How the length of an item whose cell has not been measured yet is estimated from the measured lengths,
+     * see {@link LengthStatistic}. {@link LengthStatistic#MEAN} by default.
+     */
+    public ObjectProperty<LengthStatistic> lengthStatisticProperty()
+    {
+        return lengthStatistic;
+    }
+
+    public LengthStatistic getLengthStatistic()
+    {
+        return lengthStatistic.get();
+    }
+
+    public void setLengthStatistic(LengthStatistic lengthStatistic)
+    {
+        this.lengthStatistic.set(lengthStatistic);
+    }
+
+    /**
+     * How long to spend per frame at most on measuring the items that have not been displayed yet, so that the
+     * {@link #totalLengthEstimateProperty() total length estimate} converges to the exact total length. Items are
+     * only measured in frames in which the viewport does not need to be laid out. {@link Duration#ZERO} (the
+     * default) disables this, so that only displayed items are measured.
+     *
+     * @see #measuredLengthFractionProperty()
+     */
+    public ObjectProperty<Duration> backgroundMeasurementBudgetProperty()
+    {
+        return backgroundMeasurementBudget;
+    }
+
+    public Duration getBackgroundMeasurementBudget()
+    {
+        return backgroundMeasurementBudget.get();
+    }
+
+    public void setBackgroundMeasurementBudget(Duration backgroundMeasurementBudget)
+    {
+        this.backgroundMeasurementBudget.set(backgroundMeasurementBudget);
+    }
+
+    /**
+     * Computes the lengths of the items without creating their cells, e.g. from font metrics for items that are
+     * plain text. When set, the lengths of all items that have not been displayed are computed in the background,
+     * on all cores if the measurer {@link LengthMeasurer#isThreadSafe() is thread-safe}, again for the changed
+     * items whenever the items change, and for all items whenever the breadth of the cells changes. The
+     * {@link #totalLengthEstimateProperty() total length estimate} then becomes exact as soon as they are done.
+     * The lengths of displayed items are still measured from their cells. Null by default.
+     *
+     * @see #measuredLengthFractionProperty()
+     */
+    public ObjectProperty<LengthMeasurer<? super T>> lengthMeasurerProperty()
+    {
+        return lengthMeasurer;
+    }
+
+    public LengthMeasurer<? super T> getLengthMeasurer()
+    {
+        return lengthMeasurer.get();
+    }
+
+    public void setLengthMeasurer(LengthMeasurer<? super T> lengthMeasurer)
+    {
+        this.lengthMeasurer.set(lengthMeasurer);
+    }
+
+    /**
+     * The fraction of the items whose length has been measured at the current breadth, between 0.0 and 1.0.
+     * Once it is 1.0, the {@link #totalLengthEstimateProperty() total length estimate} is exact.
+     *
+     * @see #backgroundMeasurementBudgetProperty()
+     */
+    public Val<Double> measuredLengthFractionProperty() {
+        return sizeTracker.measuredLengthFractionProperty();
+    }
+
+    /**
+     * What the offset and total length of the content, and thus a scroll bar in the direction of the length,
+     * stand for, see {@link ScrollbarMode}. {@link ScrollbarMode#PIXEL} by default.
+     */
+    public ObjectProperty<ScrollbarMode> scrollbarModeProperty()
+    {
+        return scrollbarMode;
+    }
+
+    public ScrollbarMode getScrollbarMode()
+    {
+        return scrollbarMode.get();
+    }
+
+    public void setScrollbarMode(ScrollbarMode scrollbarMode)
+    {
+        this.scrollbarMode.set(scrollbarMode);
+    }
+
+    /**
+     * The scale at which the flow is displayed along its length, e.g. the zoom of a {@link ScaledVirtualized} that
+     * the flow is the content of, which keeps it up to date. Cells that adapt their level of detail to the scale
+     * can observe it. 1.0 by default.
+     *
+     * @see #lowDetailThresholdProperty()
+     */
+    public DoubleProperty effectiveScaleProperty()
+    {
+        return effectiveScale;
+    }
+
+    public double getEffectiveScale()
+    {
+        return effectiveScale.get();
+    }
+
+    public void setEffectiveScale(double effectiveScale)
+    {
+        this.effectiveScale.set(effectiveScale);
+    }
+
+    /**
+     * Creates the cells that are displayed instead of the regular ones while the
+     * {@link #effectiveScaleProperty() effective scale} is below the {@link #lowDetailThresholdProperty() threshold},
+     * e.g. a solid bar that is cheap to create and to render when each item is only a few pixels long. The sizes of
+     * low-detail cells are not taken for those of their items: they are laid out at the known length of their item,
+     * or at the estimated length if it is not known. Null by default, in which case the regular cells are always
+     * displayed.
+     */
+    public ObjectProperty<Function<? super T, ? extends C>> lowDetailCellFactoryProperty()
+    {
+        return lowDetailCellFactory;
+    }
+
+    public Function<? super T, ? extends C> getLowDetailCellFactory()
+    {
+        return lowDetailCellFactory.get();
+    }
+
+    public void setLowDetailCellFactory(Function<? super T, ? extends C> lowDetailCellFactory)
+    {
+        this.lowDetailCellFactory.set(lowDetailCellFactory);
+    }
+
+    /**
+     * The {@link #effectiveScaleProperty() effective scale} below which low-detail cells are displayed, if there
+     * is a {@link #lowDetailCellFactoryProperty() factory} for them. 0.0 by default.
+     */
+    public DoubleProperty lowDetailThresholdProperty()
+    {
+        return lowDetailThreshold;
+    }
+
+    public double getLowDetailThreshold()
+    {
+        return lowDetailThreshold.get();
+    }
+
+    public void setLowDetailThreshold(double lowDetailThreshold)
+    {
+        this.lowDetailThreshold.set(lowDetailThreshold);
+    }
+
+    /**
+     * Tells which items start a section, e.g. the group headers of a grouped list. If set, the item that starts
+     * the section of the first visible item is pinned at the start of the viewport, in a cell of its own, and pushed
+     * out by the item that starts the next section as that one scrolls into its place. Finding the start of the
+     * section tests the items before the first visible one, back to the start of its section. Null by default, in
+     * which case no item is pinned.
+     */
+    public ObjectProperty<Predicate<? super T>> sectionStartProperty()
+    {
+        return sectionStart;
+    }
+
+    public Predicate<? super T> getSectionStart()
+    {
+        return sectionStart.get();
+    }
+
+    public void setSectionStart(Predicate<? super T> sectionStart)
+    {
+        this.sectionStart.set(sectionStart);
+    }
+
+    /** Switches between regular and low-detail cells if the effective scale crossed the threshold */
+    private void updateDetailLevel() {
+        Function<? super T, ? extends C> factory = lowDetailCellFactory.get();
+        if(factory != null && effectiveScale.get() >= lowDetailThreshold.get()) {
+            factory = null;
+        }
+        if(factory != lowDetailCellFactoryInUse) {
+            lowDetailCellFactoryInUse = factory;
+            sizeTracker.setLowDetail(factory != null);
+            cellListManager.setLowDetailCellFactory(factory);
+            navigator.requestLayout();
+        }
+    }
+
+    private Object sizeKeyOf(Cell<?, ?> cell) {
+        T item = cellListManager.getItemOf(cell);
+        return item == null ? null : sizeKeyOfItem(item);
+    }
+
+    private Object sizeKeyOfItem(T item) {
+        Function<? super T, ?> key = sizeKey.get();
+        return key != null ? key.apply(item) : null;
+    }
+
     @SuppressWarnings("unchecked") // Because of the cast we have to perform, below
     private static final CssMetaData<VirtualFlow, Gravity> GRAVITY = new CssMetaData<VirtualFlow, Gravity>(
             "-flowless-gravity",
@@ -0,0 +1,357 @@
+package org.fxmisc.flowless;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.scene.Node;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.shape.Rectangle;
+
+import org.reactfx.EventSource;
+import org.reactfx.value.Val;
+import org.reactfx.value.Var;
+
+/**
+ * A viewport that virtualizes both its rows and its columns: only the cells at the intersection of the visible
+ * rows and the visible columns are created, so a grid of a million rows and hundreds of columns displays no more
+ * cells than fit into the viewport.
+ *
+ * <p>
+ *     The height of a row is the greatest preferred height of its cells displayed so far, and the width of a column
+ *     the greatest preferred width of its cells displayed so far. The sizes of the rows and columns that have not
+ *     been displayed yet are estimated as the average of the known ones, which is what the
+ *     {@link #totalWidthEstimateProperty() total size estimates} and the scroll offsets are based on.
+ * </p>
+ *
+ * <p>
+ *     Cells that scroll out of view are pooled by the {@link GridColumn#getCellType() cell type} of their column and
+ *     reused for the next column of that type that scrolls into view. Any change of the rows or of the columns
+ *     releases all cells.
+ * </p>
+ *
+ * @param <R> the type of the rows
+ * @param <C> the type of the cells
+ */
+public class VirtualGrid<R, C extends Cell<?, ?>> extends Region implements Virtualized {
+
+    /** The height of a row when no row has been displayed yet */
+    static final double DEFAULT_ROW_HEIGHT = 24.0;
+
+    /** The width of a column when no column has been displayed yet */
+    static final double DEFAULT_COLUMN_WIDTH = 80.0;
+
+    /** The number of layout passes after which the visible cells are positioned even if sizes still changed */
+    private static final int MAX_MEASURE_PASSES = 3;
+
+    private final ObservableList<R> rows;
+    private final ObservableList<? extends GridColumn<? super R, C>> columns;
+
+    // rows are laid out along the length, columns along the breadth
+    private final OrientationHelper orientation = new VerticalHelper();
+    private final GridAxis rowAxis = new GridAxis(DEFAULT_ROW_HEIGHT);
+    private final GridAxis columnAxis = new GridAxis(DEFAULT_COLUMN_WIDTH);
+
+    /** The displayed cells, by {@link #keyOf(int, int) position} */
+    private final Map<Long, C> presentCells = new HashMap<>();
+
+    /** The cell type of the column that each displayed cell was created or last updated for */
+    private final Map<C, Object> cellTypes = new IdentityHashMap<>();
+
+    /** Reusable cells that are not displayed, by cell type */
+    private final Map<Object, Queue<C>> cellPools = new HashMap<>();
+
+    private final ListChangeListener<R> rowsListener = this::rowsChanged;
+    private final ListChangeListener<GridColumn<? super R, C>> columnsListener = this::columnsChanged;
+
+    private final EventSource<Void> estimatesChanged = new EventSource<>();
+    private final Val<Double> totalWidthEstimate = Val.create(columnAxis::total, estimatesChanged);
+    private final Val<Double> totalHeightEstimate = Val.create(rowAxis::total, estimatesChanged);
+
+    private final Var<Double> scrollX0 = Var.newSimpleVar(0.0);
+    private final Var<Double> scrollX = scrollX0.asVar(this::setScrollX);
+    private final Var<Double> scrollY0 = Var.newSimpleVar(0.0);
+    private final Var<Double> scrollY = scrollY0.asVar(this::setScrollY);
+
+    public VirtualGrid(ObservableList<R> rows, ObservableList<? extends GridColumn<? super R, C>> columns) {
+        this.getStyleClass().add("virtual-grid");
+        this.rows = rows;
+        this.columns = columns;
+        rowAxis.replace(0, 0, rows.size());
+        columnAxis.replace(0, 0, columns.size());
+        rows.addListener(rowsListener);
+        columns.addListener(columnsListener);
+
+        clipProperty().bind(Val.map(
+                layoutBoundsProperty(),
+                b -> new Rectangle(b.getWidth(), b.getHeight())));
+
+        // scroll content by mouse scroll
+        this.addEventHandler(ScrollEvent.ANY, se -> {
+            scrollXBy(-se.getDeltaX());
+            scrollYBy(-se.getDeltaY());
+            se.consume();
+        });
+    }
+
+    public void dispose() {
+        rows.removeListener(rowsListener);
+        columns.removeListener(columnsListener);
+        releaseAll();
+        for(Queue<C> pool: cellPools.values()) {
+            pool.forEach(Cell::dispose);
+        }
+        cellPools.clear();
+    }
+
+    /**
+     * Returns the cell at the given row and column if it is displayed. This method calls {@link #layout()} as a
+     * side-effect to insure that the grid is up-to-date in light of any changes.
+     */
+    public Optional<C> getCellIfVisible(int rowIndex, int columnIndex) {
+        layout();
+        return Optional.ofNullable(presentCells.get(keyOf(rowIndex, columnIndex)));
+    }
+
+    @Override
+    public Val<Double> totalWidthEstimateProperty() {
+        return totalWidthEstimate;
+    }
+
+    @Override
+    public Val<Double> totalHeightEstimateProperty() {
+        return totalHeightEstimate;
+    }
+
+    @Override
+    public Var<Double> estimatedScrollXProperty() {
+        return scrollX;
+    }
+
+    @Override
+    public Var<Double> estimatedScrollYProperty() {
+        return scrollY;
+    }
+
+    @Override
+    public void scrollXBy(double deltaX) {
+        setScrollX(scrollX0.getValue() + deltaX);
+    }
+
+    @Override
+    public void scrollYBy(double deltaY) {
+        setScrollY(scrollY0.getValue() + deltaY);
+    }
+
+    @Override
+    public void scrollXToPixel(double pixel) {
+        setScrollX(pixel);
+    }
+
+    @Override
+    public void scrollYToPixel(double pixel) {
+        setScrollY(pixel);
+    }
+
+    private void setScrollX(double x) {
+        scrollX0.setValue(clampScrollX(x));
+        requestLayout();
+    }
+
+    private void setScrollY(double y) {
+        scrollY0.setValue(clampScrollY(y));
+        requestLayout();
+    }
+
+    private double clampScrollX(double x) {
+        double max = Math.max(columnAxis.total() - getWidth(), 0.0);
+        return Math.max(0.0, Math.min(x, max));
+    }
+
+    private double clampScrollY(double y) {
+        double max = Math.max(rowAxis.total() - getHeight(), 0.0);
+        return Math.max(0.0, Math.min(y, max));
+    }
+
+    /**
+     * Brings the scroll offsets back into range, after rows or columns were removed, the measured sizes shrank or
+     * the viewport grew
+     */
+    private void clampScroll() {
+        double x = clampScrollX(scrollX0.getValue());
+        if(x != scrollX0.getValue()) {
+            scrollX0.setValue(x);
+        }
+        double y = clampScrollY(scrollY0.getValue());
+        if(y != scrollY0.getValue()) {
+            scrollY0.setValue(y);
+        }
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double width = getWidth();
+        double height = getHeight();
+        int firstRow = 0, lastRow = -1, firstColumn = 0, lastColumn = -1;
+        boolean anySizeChanged = false;
+
+        // measuring the cells that come into view may change which rows and columns are visible
+        for(int pass = 0; pass < MAX_MEASURE_PASSES; ++pass) {
+            clampScroll();
+            double x = scrollX0.getValue();
+            double y = scrollY0.getValue();
+            firstRow = rowAxis.indexAt(y);
+            lastRow = rowAxis.indexAt(y + height - 1);
+            firstColumn = columnAxis.indexAt(x);
+            lastColumn = columnAxis.indexAt(x + width - 1);
+            if(firstRow < 0 || firstColumn < 0) {
+                break;
+            }
+
+            // release first, so that the cells that scrolled out of view are reused for the ones that come into it
+            releaseCellsOutside(firstRow, lastRow, firstColumn, lastColumn);
+            boolean sizesChanged = false;
+            for(int r = firstRow; r <= lastRow; ++r) {
+                for(int c = firstColumn; c <= lastColumn; ++c) {
+                    sizesChanged |= ensureCell(r, c);
+                }
+            }
+            anySizeChanged |= sizesChanged;
+            if(!sizesChanged) {
+                break;
+            }
+        }
+
+        if(firstRow < 0 || firstColumn < 0) {
+            releaseAll();
+        }
+
+        double x0 = scrollX0.getValue();
+        double y0 = scrollY0.getValue();
+        for(int r = firstRow; r <= lastRow; ++r) {
+            double rowOffset = rowAxis.offsetOf(r) - y0;
+            double rowHeight = rowAxis.sizeOf(r);
+            for(int c = firstColumn; c <= lastColumn; ++c) {
+                C cell = presentCells.get(keyOf(r, c));
+                if(cell != null) {
+                    orientation.resizeRelocate(cell.getNode(),
+                            columnAxis.offsetOf(c) - x0, rowOffset, columnAxis.sizeOf(c), rowHeight);
+                }
+            }
+        }
+
+        if(anySizeChanged) {
+            estimatesChanged.push(null);
+        }
+    }
+
+    /**
+     * Creates and measures the cell at the given position, unless it is displayed already
+     *
+     * @return whether measuring the cell changed the size of its row or column
+     */
+    private boolean ensureCell(int rowIndex, int columnIndex) {
+        long key = keyOf(rowIndex, columnIndex);
+        if(presentCells.containsKey(key)) {
+            return false;
+        }
+
+        GridColumn<? super R, C> column = columns.get(columnIndex);
+        R row = rows.get(rowIndex);
+        Object type = column.getCellType();
+        Queue<C> pool = cellPools.get(type);
+        C cell = pool == null ? null : pool.poll();
+        if(cell != null) {
+            column.updateCell(cell, row);
+        } else {
+            cell = column.createCell(row);
+        }
+        cell.updateIndex(rowIndex);
+        presentCells.put(key, cell);
+        cellTypes.put(cell, type);
+
+        Node node = cell.getNode();
+        getChildren().add(node);
+        node.applyCss();
+        boolean changed = columnAxis.grow(columnIndex, orientation.prefBreadth(node));
+        changed |= rowAxis.grow(rowIndex, orientation.prefLength(node, columnAxis.sizeOf(columnIndex)));
+        return changed;
+    }
+
+    private void releaseCellsOutside(int firstRow, int lastRow, int firstColumn, int lastColumn) {
+        List<Node> removedNodes = new ArrayList<>();
+        Iterator<Map.Entry<Long, C>> it = presentCells.entrySet().iterator();
+        while(it.hasNext()) {
+            Map.Entry<Long, C> entry = it.next();
+            int r = (int) (entry.getKey() >>> 32);
+            int c = (int) (long) entry.getKey();
+            if(r < firstRow || r > lastRow || c < firstColumn || c > lastColumn) {
+                it.remove();
+                removedNodes.add(entry.getValue().getNode());
+                release(entry.getValue());
+            }
+        }
+        getChildren().removeAll(removedNodes);
+    }
+
+    private void releaseAll() {
+        for(C cell: presentCells.values()) {
+            release(cell);
+        }
+        presentCells.clear();
+        getChildren().clear();
+    }
+
+    private void release(C cell) {
+        Object type = cellTypes.remove(cell);
+        cell.reset();
+        if(cell.isReusable()) {
+            cellPools.computeIfAbsent(type, t -> new ArrayDeque<>()).add(cell);
+        } else {
+            cell.dispose();
+        }
+    }
+
+    private void rowsChanged(ListChangeListener.Change<? extends R> ch) {
+        while(ch.next()) {
+            if(ch.wasPermutated()) {
+                // the sizes are measured again as the permuted rows or columns are displayed
+                int size = ch.getTo() - ch.getFrom();
+                rowAxis.replace(ch.getFrom(), size, size);
+            } else {
+                rowAxis.replace(ch.getFrom(), ch.getRemovedSize(), ch.getAddedSize());
+            }
+        }
+        releaseAll();
+        estimatesChanged.push(null);
+        requestLayout();
+    }
+
+    private void columnsChanged(ListChangeListener.Change<? extends GridColumn<? super R, C>> ch) {
+        while(ch.next()) {
+            if(ch.wasPermutated()) {
+                // the sizes are measured again as the permuted rows or columns are displayed
+                int size = ch.getTo() - ch.getFrom();
+                columnAxis.replace(ch.getFrom(), size, size);
+            } else {
+                columnAxis.replace(ch.getFrom(), ch.getRemovedSize(), ch.getAddedSize());
+            }
+        }
+        releaseAll();
+        estimatesChanged.push(null);
+        requestLayout();
+    }
+
+    private static long keyOf(int rowIndex, int columnIndex) {
+        return ((long) rowIndex << 32) | (columnIndex & 0xffffffffL);
+    }
+}
@@ -2,20 +2,29 @@ package org.fxmisc.flowless;
 
 import static javafx.scene.control.ScrollPane.ScrollBarPolicy.*;
 
-import javafx.application.Platform;
+import java.time.Duration;
+import java.util.function.Function;
+
+import javafx.animation.AnimationTimer;
 import javafx.beans.DefaultProperty;
+import javafx.beans.InvalidationListener;
 import javafx.beans.NamedArg;
 import javafx.beans.Observable;
 import javafx.beans.binding.DoubleBinding;
 import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
 import javafx.css.PseudoClass;
 import javafx.geometry.Bounds;
 import javafx.geometry.Insets;
 import javafx.geometry.Orientation;
 import javafx.scene.control.ScrollBar;
+import javafx.scene.Node;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
 
+import org.reactfx.util.FxTimer;
+import org.reactfx.util.Timer;
 import org.reactfx.value.Val;
 import org.reactfx.value.Var;
 
@@ -24,17 +33,26 @@ public class VirtualizedScrollPane<V extends Region & Virtualized> extends Regio
 
     private static final PseudoClass CONTENT_FOCUSED = PseudoClass.getPseudoClass("content-focused");
 
+    /**
+     * How much room to spare the content has to have before a scroll bar that is shown is hidden, so that estimates
+     * that change slightly once the content is laid out at its new size don't make the scroll bar flip back
+     */
+    static final double VISIBILITY_HYSTERESIS = 2.0;
+
+    /** How long a dragged scroll bar has to stay still before the content is shown instead of the preview */
+    static final Duration DRAG_PREVIEW_SETTLE_DELAY = Duration.ofMillis(150);
+
+    /** The fraction of a pixel by which the content's position has to move the thumb for the thumb to follow */
+    static final double THUMB_DAMPING = 0.5;
+
     private final ScrollBar hbar;
     private final ScrollBar vbar;
     private final V content;
+    private final StackPane dragPreviewPane = new StackPane();
+    private final ScrollbarSync hbarSync;
+    private final ScrollbarSync vbarSync;
     private final ChangeListener<Boolean> contentFocusedListener;
-    private final ChangeListener<Double> hbarValueListener;
-    private ChangeListener<Double> hPosEstimateListener;
-    private final ChangeListener<Double> vbarValueListener;
-    private final ChangeListener<Double> vPosEstimateListener;
-
-    private Var<Double> hbarValue;
-    private Var<Double> vbarValue;
+    private final InvalidationListener visibilityInputListener;
     private Var<Double> hPosEstimate;
     private Var<Double> vPosEstimate;
 
@@ -50,6 +68,27 @@ public class VirtualizedScrollPane<V extends Region & Virtualized> extends Regio
     public final void setVbarPolicy(ScrollPane.ScrollBarPolicy value) { vbarPolicy.setValue(value); }
     public final Var<ScrollPane.ScrollBarPolicy> vbarPolicyProperty() { return vbarPolicy; }
 
+    /**
+     * Whether the positions of a scroll bar are passed on to the content at most once per pulse. Dragging a scroll
+     * bar's thumb changes its position many times per pulse, each of which would otherwise make the content jump
+     * there and create the cells at that position, only for the next one to replace them.
+     */
+    private final Var<Boolean> dragThrottling = Var.newSimpleVar(false);
+    public final boolean isDragThrottling() { return dragThrottling.getValue(); }
+    public final void setDragThrottling(boolean value) { dragThrottling.setValue(value); }
+    public final Var<Boolean> dragThrottlingProperty() { return dragThrottling; }
+
+    /**
+     * Creates a node that is shown over the content while a scroll bar is dragged, e.g. a label with the index of
+     * the item at that position, given the position as a fraction of the scroll bar's range. While the scroll bar
+     * is pressed and moving, only the preview is updated; the content is moved once the scroll bar is released or
+     * stays still for a moment. Null by default, in which case the content follows the scroll bar.
+     */
+    private final Var<Function<? super Double, ? extends Node>> dragPreview = Var.newSimpleVar(null);
+    public final Function<? super Double, ? extends Node> getDragPreview() { return dragPreview.getValue(); }
+    public final void setDragPreview(Function<? super Double, ? extends Node> value) { dragPreview.setValue(value); }
+    public final Var<Function<? super Double, ? extends Node>> dragPreviewProperty() { return dragPreview; }
+
     /**
      * Constructs a VirtualizedScrollPane with the given content and policies
      */
@@ -98,95 +137,34 @@ public class VirtualizedScrollPane<V extends Region & Virtualized> extends Regio
                     VirtualizedScrollPane::offsetToScrollbarPosition)
                 .orElseConst(0.0)
                 .asVar(this::setVPosition);
-        hbarValue = Var.doubleVar(hbar.valueProperty());
-        vbarValue = Var.doubleVar(vbar.valueProperty());
-        // The use of a pair of mirrored ChangeListener instead of a more natural bidirectional binding
-        // here is a workaround following a change in JavaFX [1] which broke the behaviour of the scroll bar [2].
+        // The scroll bars follow the content one way, and only what the user does to a scroll bar is passed back,
+        // instead of a bidirectional binding, which JavaFX broke [1] for scroll bars [2], or a pair of mirrored
+        // listeners, through which refined estimates bounced back into the content as navigation.
         // [1] https://bugs.openjdk.java.net/browse/JDK-8264770
         // [2] https://github.com/FXMisc/Flowless/issues/97
-        hbarValueListener = (observable, oldValue, newValue) -> {
-        	// Fix for update anomaly reported here https://github.com/FXMisc/RichTextFX/issues/1030
-            hPosEstimate.removeListener(hPosEstimateListener);
-            hPosEstimate.setValue(newValue);
-            hPosEstimate.addListener(hPosEstimateListener);
-        };
-        hbarValue.addListener(hbarValueListener);
-        hPosEstimateListener = (observable, oldValue, newValue) -> {
-        	// Fix for update anomaly reported here https://github.com/FXMisc/RichTextFX/issues/1030
-            hbarValue.removeListener(hbarValueListener);
-            hbarValue.setValue(newValue);
-            hbarValue.addListener(hbarValueListener);
-        };
-        hPosEstimate.addListener(hPosEstimateListener);
-        vbarValueListener = (observable, oldValue, newValue) -> vPosEstimate.setValue(newValue);
-        vbarValue.addListener(vbarValueListener);
-        vPosEstimateListener = (observable, oldValue, newValue) -> vbarValue.setValue(newValue);
-        vPosEstimate.addListener(vPosEstimateListener);
+        hbarSync = new ScrollbarSync(hbar, hPosEstimate);
+        vbarSync = new ScrollbarSync(vbar, vPosEstimate);
 
         // scrollbar visibility
         hbarPolicy = Var.newSimpleVar(hPolicy);
         vbarPolicy = Var.newSimpleVar(vPolicy);
 
-        Val<Double> layoutWidth = Val.map(layoutBoundsProperty(), Bounds::getWidth);
-        Val<Double> layoutHeight = Val.map(layoutBoundsProperty(), Bounds::getHeight);
-        Val<Boolean> needsHBar0 = Val.combine(
-                content.totalWidthEstimateProperty(),
-                hContentPadding,
-                layoutWidth,
-                (cw, hcp, lw) -> cw + hcp > lw);
-        Val<Boolean> needsVBar0 = Val.combine(
-                content.totalHeightEstimateProperty(),
-                vContentPadding,
-                layoutHeight,
-                (ch, vcp, lh) -> ch + vcp > lh);
-        Val<Boolean> needsHBar = Val.combine(
-                needsHBar0,
-                needsVBar0,
-                content.totalWidthEstimateProperty(),
-                hContentPadding,
-                vbar.widthProperty(),
-                layoutWidth,
-                (needsH, needsV, cw, hcp, vbw, lw) -> needsH || needsV && cw + hcp + vbw.doubleValue() > lw);
-        Val<Boolean> needsVBar = Val.combine(
-                needsVBar0,
-                needsHBar0,
-                content.totalHeightEstimateProperty(),
-                vContentPadding,
-                hbar.heightProperty(),
-                layoutHeight,
-                (needsV, needsH, ch, vcp, hbh, lh) -> needsV || needsH && ch + vcp + hbh.doubleValue() > lh);
-
-        Val<Boolean> shouldDisplayHorizontal = Val.flatMap(hbarPolicy, policy -> {
-            switch (policy) {
-                case NEVER:
-                    return Val.constant(false);
-                case ALWAYS:
-                    return Val.constant(true);
-                default: // AS_NEEDED
-                    return needsHBar;
-            }
-        });
-        Val<Boolean> shouldDisplayVertical = Val.flatMap(vbarPolicy, policy -> {
-            switch (policy) {
-                case NEVER:
-                    return Val.constant(false);
-                case ALWAYS:
-                    return Val.constant(true);
-                default: // AS_NEEDED
-                    return needsVBar;
-            }
-        });
-
-        // request layout later, because if currently in layout, the request is ignored
-        shouldDisplayHorizontal.addListener(obs -> Platform.runLater(this::requestLayout));
-        shouldDisplayVertical.addListener(obs -> Platform.runLater(this::requestLayout));
-
-        hbar.visibleProperty().bind(shouldDisplayHorizontal);
-        vbar.visibleProperty().bind(shouldDisplayVertical);
+        // resolved in layoutChildren from the estimates at the time, so a change only needs a new layout
+        hbar.setVisible(hPolicy == ALWAYS);
+        vbar.setVisible(vPolicy == ALWAYS);
+        visibilityInputListener = obs -> requestLayout();
+        hbarPolicy.addListener(visibilityInputListener);
+        vbarPolicy.addListener(visibilityInputListener);
+        content.totalWidthEstimateProperty().addListener(visibilityInputListener);
+        content.totalHeightEstimateProperty().addListener(visibilityInputListener);
+        content.paddingProperty().addListener(visibilityInputListener);
 
         contentFocusedListener = (obs, ov, nv) -> pseudoClassStateChanged(CONTENT_FOCUSED, nv);
         content.focusedProperty().addListener(contentFocusedListener);
-        getChildren().addAll(content, hbar, vbar);
+        dragPreviewPane.setManaged(false);
+        dragPreviewPane.setMouseTransparent(true);
+        dragPreviewPane.setVisible(false);
+        getChildren().addAll(content, hbar, vbar, dragPreviewPane);
         getChildren().addListener((Observable obs) -> dispose());
     }
 
@@ -214,12 +192,23 @@ public class VirtualizedScrollPane<V extends Region & Virtualized> extends Regio
         return content;
     }
 
+    /**
+     * Makes the vertical scroll bar count as pressed while the given value is true, in place of its
+     * {@link ScrollBar#pressedProperty() pressed} property, which cannot be set without a mouse
+     */
+    void setVbarPressedSource(ObservableValue<Boolean> pressed) {
+        vbarSync.setPressedSource(pressed);
+    }
+
     private void dispose() {
         content.focusedProperty().removeListener(contentFocusedListener);
-        hbarValue.removeListener(hbarValueListener);
-        hPosEstimate.removeListener(hPosEstimateListener);
-        vbarValue.removeListener(vbarValueListener);
-        vPosEstimate.removeListener(vPosEstimateListener);
+        hbarPolicy.removeListener(visibilityInputListener);
+        vbarPolicy.removeListener(visibilityInputListener);
+        content.totalWidthEstimateProperty().removeListener(visibilityInputListener);
+        content.totalHeightEstimateProperty().removeListener(visibilityInputListener);
+        content.paddingProperty().removeListener(visibilityInputListener);
+        hbarSync.dispose();
+        vbarSync.dispose();
         unbindScrollBar(hbar);
         unbindScrollBar(vbar);
     }
@@ -228,7 +217,6 @@ public class VirtualizedScrollPane<V extends Region & Virtualized> extends Regio
         bar.maxProperty().unbind();
         bar.unitIncrementProperty().unbind();
         bar.blockIncrementProperty().unbind();
-        bar.visibleProperty().unbind();
     }
 
     @Override
@@ -305,25 +293,79 @@ public class VirtualizedScrollPane<V extends Region & Virtualized> extends Regio
     protected void layoutChildren() {
         double layoutWidth = snapSizeX(getLayoutBounds().getWidth());
         double layoutHeight = snapSizeY(getLayoutBounds().getHeight());
-        boolean vbarVisible = vbar.isVisible();
-        boolean hbarVisible = hbar.isVisible();
-        double vbarWidth = snapSizeX(vbarVisible ? vbar.prefWidth(-1) : 0);
-        double hbarHeight = snapSizeY(hbarVisible ? hbar.prefHeight(-1) : 0);
+        double vbarPrefWidth = snapSizeX(vbar.prefWidth(-1));
+        double hbarPrefHeight = snapSizeY(hbar.prefHeight(-1));
 
-        double w = layoutWidth - vbarWidth;
-        double h = layoutHeight - hbarHeight;
+        updateScrollBarVisibility(layoutWidth, layoutHeight, vbarPrefWidth, hbarPrefHeight);
+        layoutContent(layoutWidth, layoutHeight, vbarPrefWidth, hbarPrefHeight);
+
+        // laying out the content at its new size may have refined its estimates
+        if(updateScrollBarVisibility(layoutWidth, layoutHeight, vbarPrefWidth, hbarPrefHeight)) {
+            layoutContent(layoutWidth, layoutHeight, vbarPrefWidth, hbarPrefHeight);
+        }
+
+        double w = content.getWidth();
+        double h = content.getHeight();
+        if(vbar.isVisible()) {
+            vbar.resizeRelocate(layoutWidth - vbarPrefWidth, 0, vbarPrefWidth, h);
+        }
+
+        if(hbar.isVisible()) {
+            hbar.resizeRelocate(0, layoutHeight - hbarPrefHeight, w, hbarPrefHeight);
+        }
+    }
+
+    private void layoutContent(double layoutWidth, double layoutHeight, double vbarPrefWidth, double hbarPrefHeight) {
+        double w = layoutWidth - (vbar.isVisible() ? vbarPrefWidth : 0);
+        double h = layoutHeight - (hbar.isVisible() ? hbarPrefHeight : 0);
 
         content.resize(w, h);
+        content.layout();
+        dragPreviewPane.resizeRelocate(0, 0, w, h);
 
         hbar.setVisibleAmount(w);
         vbar.setVisibleAmount(h);
+    }
 
-        if(vbarVisible) {
-            vbar.resizeRelocate(layoutWidth - vbarWidth, 0, vbarWidth, h);
+    /**
+     * Shows the scroll bars that the policies and the content's size estimates call for, taking into account that
+     * each scroll bar leaves less room to the content in the other direction
+     *
+     * @return whether the visibility of either scroll bar changed
+     */
+    private boolean updateScrollBarVisibility(
+            double layoutWidth, double layoutHeight, double vbarPrefWidth, double hbarPrefHeight) {
+        Insets padding = content.getPadding();
+        double contentWidth = content.totalWidthEstimateProperty().getOrElse(0.0)
+                + padding.getLeft() + padding.getRight();
+        double contentHeight = content.totalHeightEstimateProperty().getOrElse(0.0)
+                + padding.getTop() + padding.getBottom();
+        double hSlack = hbar.isVisible() ? VISIBILITY_HYSTERESIS : 0;
+        double vSlack = vbar.isVisible() ? VISIBILITY_HYSTERESIS : 0;
+
+        boolean showH = shouldDisplay(hbarPolicy.getValue(), contentWidth > layoutWidth - hSlack);
+        boolean showV = shouldDisplay(vbarPolicy.getValue(), contentHeight > layoutHeight - vSlack);
+        if(!showV && vbarPolicy.getValue() == AS_NEEDED && showH) {
+            showV = contentHeight > layoutHeight - hbarPrefHeight - vSlack;
         }
+        if(!showH && hbarPolicy.getValue() == AS_NEEDED && showV) {
+            showH = contentWidth > layoutWidth - vbarPrefWidth - hSlack;
+        }
+
+        boolean changed = showH != hbar.isVisible() || showV != vbar.isVisible();
+        hbar.setVisible(showH);
+        vbar.setVisible(showV);
+        return changed;
+    }
 
-        if(hbarVisible) {
-            hbar.resizeRelocate(0, layoutHeight - hbarHeight, w, hbarHeight);
+    private static boolean shouldDisplay(ScrollPane.ScrollBarPolicy policy, boolean needed) {
+        switch (policy) {
+            case NEVER:
+                return false;
+            case ALWAYS:
+                return true;
+            default: // AS_NEEDED
+                return needed;
         }
     }
 
@@ -351,6 +393,132 @@ public class VirtualizedScrollPane<V extends Region & Virtualized> extends Regio
         }
     }
 
+    /**
+     * Keeps a scroll bar in sync with the content's position. Changes of the content's position estimate only move
+     * the thumb, and only by at least {@link #THUMB_DAMPING} of a pixel, so that estimates that are refined as cells
+     * are measured neither make the thumb jitter nor navigate the content. Only changes that the user makes to the
+     * scroll bar are passed on to the content: at most once per pulse if {@link #dragThrottling} is on, and only
+     * once the scroll bar is released or stays still while a {@link #dragPreview} is shown.
+     */
+    private final class ScrollbarSync {
+        private final ScrollBar bar;
+        private final Var<Double> posEstimate;
+
+        /** Whether the user holds the scroll bar, normally its pressed property */
+        private ObservableValue<Boolean> pressed;
+
+        /** Whether the thumb is being moved to follow the content, as opposed to by the user */
+        private boolean followingContent = false;
+
+        /** Whether a position set by the user is being passed on to the content */
+        private boolean applying = false;
+
+        private final ChangeListener<Number> valueListener = (obs, oldValue, newValue) -> {
+            if(!followingContent) {
+                userChanged(newValue.doubleValue());
+            }
+        };
+        private final ChangeListener<Double> posEstimateListener = (obs, oldPos, newPos) -> contentMoved(newPos);
+        private final ChangeListener<Boolean> pressedListener = (obs, wasPressed, pressed) -> {
+            if(!pressed) {
+                applyPending();
+            }
+        };
+
+        /** The position that has not been passed on yet, or null */
+        private Double pending = null;
+
+        private final AnimationTimer pulse = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                applyPending();
+            }
+        };
+        private final Timer settle;
+
+        ScrollbarSync(ScrollBar bar, Var<Double> posEstimate) {
+            this.bar = bar;
+            this.posEstimate = posEstimate;
+            this.pressed = bar.pressedProperty();
+            this.settle = FxTimer.create(DRAG_PREVIEW_SETTLE_DELAY, this::applyPending);
+            bar.valueProperty().addListener(valueListener);
+            posEstimate.addListener(posEstimateListener);
+            pressed.addListener(pressedListener);
+        }
+
+        void setPressedSource(ObservableValue<Boolean> source) {
+            pressed.removeListener(pressedListener);
+            pressed = source;
+            pressed.addListener(pressedListener);
+        }
+
+        private void contentMoved(double pos) {
+            // the scroll bar already shows where the user put it, see https://github.com/FXMisc/RichTextFX/issues/1030
+            if(applying || pending != null) {
+                return;
+            }
+            double max = bar.getMax();
+            double track = bar.getOrientation() == Orientation.VERTICAL ? bar.getHeight() : bar.getWidth();
+            boolean atEnd = pos <= 0 || pos >= max;
+            if(!atEnd && max > 0 && track > 0 && Math.abs(pos - bar.getValue()) * track / max < THUMB_DAMPING) {
+                return;
+            }
+            followingContent = true;
+            try {
+                bar.setValue(pos);
+            } finally {
+                followingContent = false;
+            }
+        }
+
+        private void userChanged(double value) {
+            Function<? super Double, ? extends Node> preview = dragPreview.getValue();
+            if(preview != null && pressed.getValue()) {
+                pending = value;
+                double max = bar.getMax();
+                dragPreviewPane.getChildren().setAll(preview.apply(max > 0 ? value / max : 0.0));
+                dragPreviewPane.setVisible(true);
+                settle.restart();
+            } else if(preview != null || dragThrottling.getValue()) {
+                pending = value;
+                pulse.start();
+            } else {
+                apply(value);
+            }
+        }
+
+        private void applyPending() {
+            pulse.stop();
+            settle.stop();
+            if(dragPreviewPane.isVisible()) {
+                dragPreviewPane.setVisible(false);
+                dragPreviewPane.getChildren().clear();
+            }
+            if(pending != null) {
+                double value = pending;
+                pending = null;
+                apply(value);
+            }
+        }
+
+        private void apply(double value) {
+            applying = true;
+            try {
+                posEstimate.setValue(value);
+            } finally {
+                applying = false;
+            }
+        }
+
+        void dispose() {
+            bar.valueProperty().removeListener(valueListener);
+            posEstimate.removeListener(posEstimateListener);
+            pressed.removeListener(pressedListener);
+            pulse.stop();
+            settle.stop();
+        }
+    }
+
     private static void setupUnitIncrement(ScrollBar bar) {
         bar.unitIncrementProperty().bind(new DoubleBinding() {
             { bind(bar.maxProperty(), bar.visibleAmountProperty()); }
@@ -0,0 +1,79 @@
+package org.fxmisc.flowless;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.junit.Test;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BackgroundMeasurementTest extends FlowlessTestBase {
+
+    private ObservableList<Integer> items;
+    private VirtualFlow<Integer, Cell<Integer, Region>> flow;
+    private StackPane stackPane;
+
+    private static double lengthOf(int item) {
+        return item % 3 == 0 ? 40.0 : 10.0;
+    }
+
+    @Override
+    public void start(Stage stage) {
+        // 334 items of length 40 and 666 of length 10, 20020 pixels in total
+        items = FXCollections.observableArrayList();
+        for(int i = 0; i < 1000; ++i) {
+            items.add(i);
+        }
+
+        flow = VirtualFlow.createVertical(items, i -> {
+            Region reg = new Region();
+            reg.setPrefHeight(lengthOf(i));
+            return Cell.wrapNode(reg);
+        });
+
+        stackPane = new StackPane();
+        stackPane.getChildren().add(flow);
+        stage.setScene(new Scene(stackPane, 200, 200));
+        stage.show();
+    }
+
+    @Test
+    public void only_displayed_items_are_measured_by_default() {
+        assertTrue(flow.measuredLengthFractionProperty().getValue() < 0.1);
+    }
+
+    @Test
+    public void total_length_becomes_exact_once_all_items_are_measured() throws TimeoutException {
+        interact(() -> flow.setBackgroundMeasurementBudget(Duration.ofMillis(2)));
+        WaitForAsyncUtils.waitFor(10, TimeUnit.SECONDS,
+                () -> flow.measuredLengthFractionProperty().getValue() == 1.0);
+        assertEquals(20020.0, flow.totalLengthEstimateProperty().getValue(), 0.1);
+
+        // added items are measured as well
+        interact(() -> items.addAll(1000, 1001));
+        WaitForAsyncUtils.waitFor(10, TimeUnit.SECONDS,
+                () -> flow.measuredLengthFractionProperty().getValue() == 1.0);
+        assertEquals(20040.0, flow.totalLengthEstimateProperty().getValue(), 0.1);
+    }
+
+    @Test
+    public void measuring_waits_for_the_flow_to_be_in_a_scene() throws TimeoutException {
+        interact(() -> stackPane.getChildren().remove(flow));
+        interact(() -> flow.setBackgroundMeasurementBudget(Duration.ofMillis(2)));
+        WaitForAsyncUtils.waitForFxEvents();
+        assertTrue(flow.measuredLengthFractionProperty().getValue() < 0.1);
+
+        interact(() -> stackPane.getChildren().add(flow));
+        WaitForAsyncUtils.waitFor(10, TimeUnit.SECONDS,
+                () -> flow.measuredLengthFractionProperty().getValue() == 1.0);
+    }
+}
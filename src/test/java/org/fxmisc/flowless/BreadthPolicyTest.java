@@ -0,0 +1,74 @@
+package org.fxmisc.flowless;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.fxmisc.flowless.VirtualFlow.BreadthPolicy;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class BreadthPolicyTest extends FlowlessTestBase {
+
+    private ObservableList<Integer> items;
+    private VirtualFlow<Integer, Cell<Integer, Region>> flow;
+
+    @Override
+    public void start(Stage stage) {
+        // item 0 is wide, all others are narrower than the viewport
+        items = FXCollections.observableArrayList();
+        for(int i = 0; i < 100; ++i) {
+            items.add(i == 0 ? 300 : 50);
+        }
+
+        flow = VirtualFlow.createVertical(items, w -> {
+            Region reg = new Region();
+            reg.setMinWidth(w);
+            reg.setPrefHeight(20.0);
+            return Cell.wrapNode(reg);
+        });
+
+        StackPane stackPane = new StackPane();
+        stackPane.getChildren().add(flow);
+        stage.setScene(new Scene(stackPane, 200, 200));
+        stage.show();
+    }
+
+    @Before
+    public void setup() {
+        interact(() -> flow.showAsFirst(0));
+    }
+
+    @Test
+    public void max_seen_keeps_the_breadth_of_scrolled_out_cells() {
+        assertEquals(300.0, flow.totalBreadthEstimateProperty().getValue(), 0.1);
+        interact(() -> flow.showAsFirst(50));
+        assertEquals(300.0, flow.totalBreadthEstimateProperty().getValue(), 0.1);
+        assertEquals(300.0, flow.getCell(50).getNode().getWidth(), 0.1);
+
+        // removing the wide item takes its breadth out of account
+        interact(() -> items.remove(0));
+        assertEquals(50.0, flow.totalBreadthEstimateProperty().getValue(), 0.1);
+        assertEquals(200.0, flow.getCell(50).getNode().getWidth(), 0.1);
+    }
+
+    @Test
+    public void max_visible_follows_the_cells_in_the_viewport() {
+        interact(() -> flow.setBreadthPolicy(BreadthPolicy.MAX_VISIBLE));
+        assertEquals(300.0, flow.getCell(0).getNode().getWidth(), 0.1);
+        interact(() -> flow.showAsFirst(50));
+        assertEquals(50.0, flow.totalBreadthEstimateProperty().getValue(), 0.1);
+        assertEquals(200.0, flow.getCell(50).getNode().getWidth(), 0.1);
+    }
+
+    @Test
+    public void fit_viewport_ignores_the_breadth_of_cells() {
+        interact(() -> flow.setBreadthPolicy(BreadthPolicy.FIT_VIEWPORT));
+        assertEquals(0.0, flow.totalBreadthEstimateProperty().getValue(), 0.1);
+        assertEquals(200.0, flow.getCell(0).getNode().getWidth(), 0.1);
+    }
+}
@@ -0,0 +1,82 @@
+package org.fxmisc.flowless;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.collections.ListChangeListener;
+import org.junit.Test;
+
+public class FlatTreeTest {
+
+    private final List<String> expandedNodes = new ArrayList<>();
+
+    /** A tree of the given fan-out and depth, whose node names are their paths from the root */
+    private FlatTree<String> tree(int fanOut, int depth) {
+        return new FlatTree<>("r", node -> {
+            expandedNodes.add(node);
+            if(node.split("/").length > depth) {
+                return List.of();
+            }
+            return new AbstractList<String>() {
+                @Override public String get(int i) { return node + "/" + i; }
+                @Override public int size() { return fanOut; }
+            };
+        });
+    }
+
+    @Test
+    public void expanding_and_collapsing_a_subtree_is_a_single_change() {
+        FlatTree<String> tree = tree(1000, 2);
+        List<String> changes = new ArrayList<>();
+        tree.addListener((ListChangeListener<String>) ch -> {
+            while(ch.next()) {
+                changes.add(ch.getFrom() + "+" + ch.getAddedSize() + "-" + ch.getRemovedSize());
+                if(ch.wasRemoved()) {
+                    assertEquals("r/4", ch.getRemoved().get(4));
+                    assertEquals("r/4/0", ch.getRemoved().get(5));
+                }
+            }
+        });
+        assertEquals(1, tree.size());
+
+        tree.expand(0);
+        tree.expand(5);
+        assertEquals(List.of("1+1000-0", "6+1000-0"), changes);
+        assertEquals(2001, tree.size());
+        assertEquals("r/4", tree.get(5));
+        assertEquals("r/4/0", tree.get(6));
+        assertEquals("r/4/999", tree.get(1005));
+        assertEquals("r/5", tree.get(1006));
+        assertEquals(2, tree.getDepth(6));
+        assertEquals(5, tree.getParentIndex(6));
+        assertEquals(0, tree.getParentIndex(1006));
+
+        tree.collapse(0);
+        assertEquals("1+0-2000", changes.get(2));
+        assertEquals(1, tree.size());
+
+        // the subtree keeps its expanded nodes while it is collapsed
+        tree.expand(0);
+        assertEquals("1+2000-0", changes.get(3));
+        assertTrue(tree.isExpanded(5));
+        assertEquals("r/5", tree.get(1006));
+    }
+
+    @Test
+    public void only_the_children_of_expanded_nodes_are_asked_for() {
+        FlatTree<String> tree = tree(1_000_000, 3);
+        tree.expand(0);
+        tree.expand(1 + 499_999);
+        assertEquals(1 + 2_000_000, tree.size());
+        assertEquals("r/499999/0", tree.get(500_001));
+        assertEquals("r/500000", tree.get(1_500_001));
+        assertEquals("r/999999", tree.get(2_000_000));
+        assertFalse(tree.isExpanded(500_001));
+        assertEquals(List.of("r", "r/499999"), expandedNodes);
+    }
+}
@@ -0,0 +1,62 @@
+package org.fxmisc.flowless;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.fxmisc.flowless.VirtualFlow.ScrollbarMode;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class IndexScrollbarTest extends FlowlessTestBase {
+
+    private ObservableList<Integer> items;
+    private VirtualFlow<Integer, Cell<Integer, Region>> flow;
+
+    @Override
+    public void start(Stage stage) {
+        // items alternate between 30 and 10 pixels, so that 10 items fill the viewport
+        items = FXCollections.observableArrayList();
+        for(int i = 0; i < 1000; ++i) {
+            items.add(i);
+        }
+
+        flow = VirtualFlow.createVertical(items, i -> {
+            Region reg = new Region();
+            reg.setPrefHeight(i % 2 == 0 ? 30.0 : 10.0);
+            return Cell.wrapNode(reg);
+        });
+        flow.setScrollbarMode(ScrollbarMode.INDEX);
+
+        StackPane stackPane = new StackPane();
+        stackPane.getChildren().add(new VirtualizedScrollPane<>(flow));
+        stage.setScene(new Scene(stackPane, 200, 200));
+        stage.show();
+    }
+
+    @Test
+    public void offset_and_total_length_are_in_items() {
+        interact(() -> flow.showAsFirst(500));
+        // 10 visible items, each standing for 20 pixels
+        assertEquals(20000.0, flow.totalLengthEstimateProperty().getValue(), 0.1);
+        assertEquals(10000.0, flow.lengthOffsetEstimateProperty().getValue(), 0.1);
+    }
+
+    @Test
+    public void setting_the_offset_shows_the_item_at_that_position() {
+        interact(() -> flow.lengthOffsetEstimateProperty().setValue(250.5 * 20.0));
+        assertEquals(250, flow.getFirstVisibleIndex());
+        assertEquals(-15.0, flow.getCellIfVisible(250).get().getNode().getLayoutY(), 0.1);
+        assertEquals(250.5 * 20.0, flow.lengthOffsetEstimateProperty().getValue(), 0.1);
+    }
+
+    @Test
+    public void offset_is_limited_to_the_last_screen() {
+        interact(() -> flow.lengthOffsetEstimateProperty().setValue(1e9));
+        assertEquals(999, flow.getLastVisibleIndex());
+        assertEquals(990 * 20.0, flow.lengthOffsetEstimateProperty().getValue(), 0.1);
+    }
+}
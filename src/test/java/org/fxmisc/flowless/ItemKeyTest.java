@@ -0,0 +1,104 @@
+package org.fxmisc.flowless;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ItemKeyTest extends FlowlessTestBase {
+
+    private static final class Entry {
+        final int id;
+        final String text;
+
+        Entry(int id, String text) {
+            this.id = id;
+            this.text = text;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Entry && ((Entry) obj).id == id && ((Entry) obj).text.equals(text);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, text);
+        }
+    }
+
+    private ObservableList<Entry> items;
+    private Counter cellCreations = new Counter();
+    private VirtualFlow<Entry, Cell<Entry, Region>> flow;
+
+    private static List<Entry> snapshot(int count) {
+        List<Entry> entries = new ArrayList<>();
+        for(int i = 0; i < count; ++i) {
+            entries.add(new Entry(i, "entry " + i));
+        }
+        return entries;
+    }
+
+    @Override
+    public void start(Stage stage) {
+        items = FXCollections.observableArrayList(snapshot(80));
+
+        flow = VirtualFlow.createVertical(items, entry -> {
+            cellCreations.inc();
+            Region reg = new Region();
+            reg.setPrefHeight(16.0);
+            reg.setUserData(entry.text);
+            return Cell.wrapNode(reg);
+        });
+        flow.setItemKey(entry -> entry.id);
+
+        StackPane stackPane = new StackPane();
+        // 25 cells (each 16px high) fit into the viewport
+        stackPane.getChildren().add(flow);
+        stage.setScene(new Scene(stackPane, 200, 400));
+        stage.show();
+    }
+
+    @Before
+    public void setup() {
+        cellCreations.reset();
+    }
+
+    @Test
+    public void setting_an_equal_snapshot_does_not_create_cells() {
+        Region node = flow.getCellIfVisible(10).get().getNode();
+
+        interact(() -> items.setAll(snapshot(80)));
+        assertEquals(0, cellCreations.getAndReset());
+        assertSame(node, flow.getCellIfVisible(10).get().getNode());
+    }
+
+    @Test
+    public void setting_a_snapshot_creates_cells_only_for_changed_items() {
+        interact(() -> flow.showAsFirst(30));
+        cellCreations.reset();
+        Region node = flow.getCellIfVisible(40).get().getNode();
+
+        List<Entry> entries = snapshot(80);
+        entries.set(35, new Entry(35, "changed"));
+        entries.add(45, new Entry(80, "added"));
+        entries.remove(0);
+        interact(() -> items.setAll(entries));
+        assertEquals(2, cellCreations.getAndReset());
+        // the first visible item stays in place
+        assertEquals(29, flow.getFirstVisibleIndex());
+        assertSame(node, flow.getCellIfVisible(39).get().getNode());
+        assertEquals("changed", flow.getCellIfVisible(34).get().getNode().getUserData());
+    }
+}
@@ -0,0 +1,99 @@
+package org.fxmisc.flowless;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LengthCacheTest extends FlowlessTestBase {
+
+    private ObservableList<String> items;
+    private Counter cellCreations = new Counter();
+    private Counter lengthComputations = new Counter();
+    private VirtualFlow<String, Cell<String, Region>> flow;
+
+    private static List<String> lines(int count) {
+        List<String> lines = new ArrayList<>();
+        for(int i = 0; i < count; ++i) {
+            // distinct objects, but only 4 distinct contents
+            lines.add(new String("line " + (i % 4)));
+        }
+        return lines;
+    }
+
+    @Override
+    public void start(Stage stage) {
+        items = FXCollections.observableArrayList(lines(80));
+
+        flow = VirtualFlow.createVertical(items, line -> {
+            cellCreations.inc();
+            Region reg = new Region() {
+                @Override
+                protected double computePrefHeight(double width) {
+                    // wraps at a width below 150px
+                    lengthComputations.inc();
+                    return width < 150.0 ? 32.0 : 16.0;
+                }
+            };
+            return Cell.wrapNode(reg);
+        });
+        flow.setSizeKey(line -> line);
+
+        StackPane stackPane = new StackPane();
+        // 25 cells (each 16px high) fit into the viewport
+        stackPane.getChildren().add(flow);
+        stage.setScene(new Scene(stackPane, 200, 400));
+        stage.show();
+    }
+
+    @Before
+    public void setup() {
+        cellCreations.reset();
+        lengthComputations.reset();
+    }
+
+    @Test
+    public void replacing_items_with_cached_size_keys_does_not_measure_cells() {
+        // all cells are created again, but their lengths are known
+        interact(() -> items.setAll(lines(80)));
+        assertTrue(cellCreations.getAndReset() > 0);
+        assertEquals(0, lengthComputations.getAndReset());
+    }
+
+    @Test
+    public void items_with_equal_size_keys_are_measured_once() {
+        interact(() -> items.setAll(lines(4)));
+        interact(() -> items.addAll(lines(40)));
+        assertEquals(0, lengthComputations.getAndReset());
+    }
+
+    @Test
+    public void an_item_set_again_at_its_index_is_measured_again() {
+        // item 70 is not displayed, but its size key is cached from the items displayed
+        interact(() -> items.set(70, items.get(70)));
+        interact(() -> flow.showAsFirst(70));
+        assertTrue(lengthComputations.getAndReset() > 0);
+    }
+
+    @Test
+    public void resizing_back_to_a_previous_breadth_does_not_measure_cells() {
+        interact(() -> flow.setMaxWidth(120.0));
+        assertTrue(lengthComputations.getAndReset() > 0);
+
+        interact(() -> flow.setMaxWidth(Double.MAX_VALUE));
+        interact(() -> flow.setMaxWidth(120.0));
+        interact(() -> flow.setMaxWidth(Double.MAX_VALUE));
+        assertEquals(0, lengthComputations.getAndReset());
+        assertTrue(flow.getLengthCacheHitRate() > 0.5);
+    }
+}
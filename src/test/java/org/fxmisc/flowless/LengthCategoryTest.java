@@ -0,0 +1,95 @@
+package org.fxmisc.flowless;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LengthCategoryTest extends FlowlessTestBase {
+
+    private static final double HEADER_LENGTH = 400.0;
+    private static final double ROW_LENGTH = 16.0;
+
+    private ObservableList<Integer> items;
+    private VirtualFlow<Integer, ItemCell> flow;
+
+    private static class ItemCell implements Cell<Integer, Region> {
+        private final Region reg = new Region();
+
+        ItemCell(int item) {
+            updateItem(item);
+        }
+
+        @Override
+        public Region getNode() {
+            return reg;
+        }
+
+        @Override
+        public boolean isReusable() {
+            return true;
+        }
+
+        @Override
+        public void updateItem(Integer item) {
+            reg.setPrefHeight(isHeader(item) ? HEADER_LENGTH : ROW_LENGTH);
+        }
+    }
+
+    private static boolean isHeader(int item) {
+        return item % 10 == 1;
+    }
+
+    @Override
+    public void start(Stage stage) {
+        // 100 headers and 900 rows, 54400 pixels in total
+        items = FXCollections.observableArrayList();
+        for(int i = 0; i < 1000; ++i) {
+            items.add(i);
+        }
+
+        flow = VirtualFlow.createVertical(items, ItemCell::new);
+        flow.setLengthCategory(LengthCategoryTest::isHeader);
+
+        StackPane stackPane = new StackPane();
+        stackPane.getChildren().add(flow);
+        stage.setScene(new Scene(stackPane, 200, 200));
+        stage.show();
+    }
+
+    @Test
+    public void unknown_lengths_are_estimated_by_category() {
+        // a row and a header have been measured
+        assertEquals(54400.0, flow.totalLengthEstimateProperty().getValue(), 0.1);
+
+        // 50 headers and 450 rows before item 500
+        interact(() -> flow.showAsFirst(500));
+        assertEquals(27200.0, flow.lengthOffsetEstimateProperty().getValue(), 0.1);
+        assertEquals(54400.0, flow.totalLengthEstimateProperty().getValue(), 0.1);
+
+        // and dragging the scroll bar to that offset shows the same item
+        interact(() -> flow.showAsFirst(0));
+        interact(() -> flow.lengthOffsetEstimateProperty().setValue(27200.0));
+        assertEquals(500, flow.getFirstVisibleIndex());
+    }
+
+    @Test
+    public void an_item_updated_in_place_is_estimated_by_its_new_category() {
+        // the cell of the first header is displayed and reusable, so it is updated with a row in place
+        interact(() -> items.set(1, 0));
+        // 99 headers and 901 rows
+        assertEquals(54016.0, flow.totalLengthEstimateProperty().getValue(), 0.1);
+    }
+
+    @Test
+    public void without_categories_all_items_are_estimated_alike() {
+        interact(() -> flow.setLengthCategory(null));
+        // the mean of a row and a header
+        assertEquals(1000 * 208.0, flow.totalLengthEstimateProperty().getValue(), 0.1);
+    }
+}
@@ -0,0 +1,70 @@
+package org.fxmisc.flowless;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.junit.Before;
+import org.junit.Test;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LiveResizeTest extends FlowlessTestBase {
+
+    private ObservableList<Integer> items;
+    private Counter lengthComputations = new Counter();
+    private VirtualFlow<Integer, Cell<Integer, Region>> flow;
+
+    @Override
+    public void start(Stage stage) {
+        items = FXCollections.observableArrayList();
+        for(int i = 0; i < 80; ++i) {
+            items.add(i);
+        }
+
+        flow = VirtualFlow.createVertical(items, i -> {
+            Region reg = new Region() {
+                @Override
+                protected double computePrefHeight(double width) {
+                    // grows as it gets narrower, like wrapped text
+                    lengthComputations.inc();
+                    return 3200.0 / width;
+                }
+            };
+            return Cell.wrapNode(reg);
+        });
+        flow.setLiveResizeDelay(Duration.ofMillis(200));
+
+        StackPane stackPane = new StackPane();
+        stackPane.getChildren().add(flow);
+        stage.setScene(new Scene(stackPane, 200, 400));
+        stage.show();
+    }
+
+    @Before
+    public void setup() {
+        lengthComputations.reset();
+    }
+
+    @Test
+    public void cells_are_measured_once_the_breadth_is_stable() throws InterruptedException {
+        interact(() -> flow.setMaxWidth(190.0));
+        interact(() -> flow.setMaxWidth(180.0));
+        interact(() -> flow.setMaxWidth(160.0));
+        assertEquals(0, lengthComputations.getAndReset());
+        // laid out with the new breadth, but the length for the old breadth
+        assertEquals(160.0, flow.getCell(0).getNode().getWidth(), 0.1);
+        assertEquals(16.0, flow.getCell(0).getNode().getHeight(), 0.1);
+
+        Thread.sleep(400);
+        WaitForAsyncUtils.waitForFxEvents();
+        assertTrue(lengthComputations.getAndReset() > 0);
+        assertEquals(20.0, flow.getCell(0).getNode().getHeight(), 0.1);
+    }
+}
@@ -0,0 +1,85 @@
+package org.fxmisc.flowless;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LowDetailCellsTest extends FlowlessTestBase {
+
+    private VirtualFlow<Integer, Cell<Integer, Region>> flow;
+    private ScaledVirtualized<VirtualFlow<Integer, Cell<Integer, Region>>> scaled;
+    private final Counter regularCells = new Counter();
+    private final Counter lowDetailCells = new Counter();
+    private StackPane root;
+
+    @Override
+    public void start(Stage stage) {
+        ObservableList<Integer> items = FXCollections.observableArrayList();
+        for(int i = 0; i < 1000; ++i) {
+            items.add(i);
+        }
+
+        flow = VirtualFlow.createVertical(items, i -> {
+            regularCells.inc();
+            Region reg = new Region();
+            reg.setPrefHeight(20.0);
+            return Cell.wrapNode(reg);
+        });
+        flow.setLowDetailThreshold(0.5);
+        flow.setLowDetailCellFactory(i -> {
+            lowDetailCells.inc();
+            Region bar = new Region();
+            bar.setId("bar");
+            bar.setPrefHeight(1.0);
+            return Cell.wrapNode(bar);
+        });
+        scaled = new ScaledVirtualized<>(flow);
+
+        root = new StackPane();
+        root.getChildren().add(scaled);
+        stage.setScene(new Scene(root, 200, 200));
+        stage.show();
+    }
+
+    @Test
+    public void low_detail_cells_are_displayed_below_the_threshold() {
+        interact(() -> {
+            regularCells.reset();
+            scaled.getZoom().setY(0.25);
+            root.layout();
+
+            assertEquals(0.25, flow.getEffectiveScale(), 0.0);
+            assertEquals(0, regularCells.getAndReset());
+            assertEquals(40, lowDetailCells.getAndReset());
+            for(Cell<Integer, Region> cell: flow.visibleCells()) {
+                assertEquals("bar", cell.getNode().getId());
+                // laid out at the length of the item, not the bar's own
+                assertEquals(20.0, cell.getNode().getHeight(), 0.0);
+            }
+
+            scaled.getZoom().setY(1.0);
+            root.layout();
+            assertEquals(10, regularCells.getAndReset());
+            assertEquals(0, lowDetailCells.getAndReset());
+            assertEquals(20000.0, flow.totalLengthEstimateProperty().getValue(), 0.0);
+        });
+    }
+
+    @Test
+    public void regular_cells_are_displayed_above_the_threshold() {
+        interact(() -> {
+            regularCells.reset();
+            scaled.getZoom().setY(0.75);
+            root.layout();
+
+            assertEquals(4, regularCells.getAndReset());
+            assertEquals(0, lowDetailCells.get());
+        });
+    }
+}
@@ -0,0 +1,73 @@
+package org.fxmisc.flowless;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class MovedItemsCellCreationTest extends FlowlessTestBase {
+
+    private ObservableList<Integer> items;
+    private Counter cellCreations = new Counter();
+    private VirtualFlow<Integer, Cell<Integer, Region>> flow;
+
+    @Override
+    public void start(Stage stage) {
+        // set up items: the first 25 in reverse order
+        items = FXCollections.observableArrayList();
+        for(int i = 24; i >= 0; --i) {
+            items.add(i);
+        }
+        for(int i = 25; i < 80; ++i) {
+            items.add(i);
+        }
+
+        // set up virtual flow
+        flow = VirtualFlow.createVertical(items, i -> {
+            cellCreations.inc();
+            Region reg = new Region();
+            reg.setPrefHeight(16.0);
+            return Cell.wrapNode(reg);
+        });
+
+        StackPane stackPane = new StackPane();
+        // 25 cells (each 16px high) fit into the viewport
+        stackPane.getChildren().add(flow);
+        stage.setScene(new Scene(stackPane, 200, 400));
+        stage.show();
+    }
+
+    @Before
+    public void setup() {
+        cellCreations.reset();
+    }
+
+    @Test
+    public void sorting_items_in_viewport_does_not_create_cells() {
+        Region firstNode = flow.getCellIfVisible(0).get().getNode();
+
+        interact(() -> FXCollections.sort(items));
+        assertEquals(0, cellCreations.getAndReset());
+        assertSame(firstNode, flow.getCellIfVisible(24).get().getNode());
+    }
+
+    @Test
+    public void moving_an_item_within_viewport_does_not_create_cells() {
+        Region node = flow.getCellIfVisible(3).get().getNode();
+
+        interact(() -> items.add(10, items.remove(3)));
+        assertEquals(0, cellCreations.getAndReset());
+        assertSame(node, flow.getCellIfVisible(10).get().getNode());
+
+        interact(() -> items.add(1, items.remove(10)));
+        assertEquals(0, cellCreations.getAndReset());
+        assertSame(node, flow.getCellIfVisible(1).get().getNode());
+    }
+}
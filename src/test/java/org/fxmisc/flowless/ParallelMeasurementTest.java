@@ -0,0 +1,123 @@
+package org.fxmisc.flowless;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.junit.Test;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ParallelMeasurementTest extends FlowlessTestBase {
+
+    private ObservableList<Integer> items;
+    private VirtualFlow<Integer, Cell<Integer, Region>> flow;
+
+    private final AtomicInteger measurements = new AtomicInteger();
+    private final AtomicBoolean measuredOnFxThread = new AtomicBoolean();
+
+    private static double lengthOf(int item) {
+        return item % 2 == 0 ? 30.0 : 10.0;
+    }
+
+    @Override
+    public void start(Stage stage) {
+        // 100000 items, 2000000 pixels in total
+        List<Integer> list = new ArrayList<>();
+        for(int i = 0; i < 100_000; ++i) {
+            list.add(i);
+        }
+        items = FXCollections.observableArrayList(list);
+
+        flow = VirtualFlow.createVertical(items, i -> {
+            Region reg = new Region();
+            reg.setPrefHeight(lengthOf(i));
+            return Cell.wrapNode(reg);
+        });
+
+        StackPane stackPane = new StackPane();
+        stackPane.getChildren().add(flow);
+        stage.setScene(new Scene(stackPane, 200, 200));
+        stage.show();
+    }
+
+    private void setMeasurer() {
+        interact(() -> flow.setLengthMeasurer(new LengthMeasurer<Integer>() {
+            @Override
+            public double lengthOf(Integer item, double breadth) {
+                measurements.incrementAndGet();
+                if(Platform.isFxApplicationThread()) {
+                    measuredOnFxThread.set(true);
+                }
+                return ParallelMeasurementTest.lengthOf(item);
+            }
+
+            @Override
+            public boolean isThreadSafe() {
+                return true;
+            }
+        }));
+    }
+
+    private void waitUntilMeasured() throws TimeoutException {
+        WaitForAsyncUtils.waitFor(10, TimeUnit.SECONDS,
+                () -> flow.measuredLengthFractionProperty().getValue() == 1.0);
+    }
+
+    @Test
+    public void total_length_becomes_exact_once_all_items_are_measured() throws TimeoutException {
+        setMeasurer();
+        waitUntilMeasured();
+        assertEquals(2_000_000.0, flow.totalLengthEstimateProperty().getValue(), 0.1);
+        assertFalse(measuredOnFxThread.get());
+    }
+
+    @Test
+    public void only_changed_items_are_measured_again() throws TimeoutException {
+        setMeasurer();
+        waitUntilMeasured();
+        measurements.set(0);
+
+        interact(() -> items.addAll(50_000, List.of(0, 0, 0, 0, 1)));
+        waitUntilMeasured();
+        assertEquals(5, measurements.get());
+        assertEquals(2_000_130.0, flow.totalLengthEstimateProperty().getValue(), 0.1);
+    }
+
+    @Test
+    public void a_measurer_that_fails_is_reported_and_tried_again() throws TimeoutException {
+        AtomicBoolean failed = new AtomicBoolean();
+        AtomicReference<Throwable> reported = new AtomicReference<>();
+        Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> reported.set(e));
+        try {
+            interact(() -> flow.setLengthMeasurer((item, breadth) -> {
+                if(failed.compareAndSet(false, true)) {
+                    throw new IllegalStateException("first call");
+                }
+                return lengthOf(item);
+            }));
+            WaitForAsyncUtils.waitFor(10, TimeUnit.SECONDS, () -> reported.get() != null);
+            assertEquals("first call", reported.get().getMessage());
+
+            // any change of the estimates leads to a check
+            interact(() -> flow.scrollYBy(10.0));
+            waitUntilMeasured();
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(handler);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.fxmisc.flowless;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.junit.Test;
+import org.testfx.util.WaitForAsyncUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RenderedCellTest extends FlowlessTestBase {
+
+    private final List<Integer> rendered = new ArrayList<>();
+    private final Region editor = new Region();
+    private VirtualFlow<Integer, RenderedCell<Integer>> flow;
+    private RenderedCell<Integer> cell;
+
+    @Override
+    public void start(Stage stage) {
+        ObservableList<Integer> items = FXCollections.observableArrayList();
+        for(int i = 0; i < 1000; ++i) {
+            items.add(i);
+        }
+
+        flow = VirtualFlow.createVerticalRendered(items, new CellRenderer<Integer>() {
+            @Override
+            public double lengthOf(Integer item, double breadth) {
+                return 20.0;
+            }
+
+            @Override
+            public void render(GraphicsContext gc, Integer item, int index, double width, double height) {
+                assertEquals(item.intValue(), index);
+                assertEquals(20.0, height, 0.0);
+                rendered.add(item);
+            }
+
+            @Override
+            public Node createEditor(Integer item) {
+                return editor;
+            }
+        });
+
+        StackPane stackPane = new StackPane();
+        stackPane.getChildren().add(flow);
+        stage.setScene(new Scene(stackPane, 200, 200));
+        stage.show();
+    }
+
+    @Test
+    public void visible_items_are_drawn_and_their_nodes_have_no_children() {
+        interact(() -> {
+            rendered.clear();
+            flow.scrollYBy(100.0);
+        });
+        WaitForAsyncUtils.waitForFxEvents();
+        assertEquals(List.of(5, 6, 7, 8, 9, 10, 11, 12, 13, 14), rendered);
+        interact(() -> {
+            for(RenderedCell<Integer> cell: flow.visibleCells()) {
+                assertTrue(cell.getNode().getChildrenUnmodifiable().isEmpty());
+            }
+        });
+    }
+
+    @Test
+    public void editing_cell_displays_the_editor_instead_of_being_drawn() {
+        interact(() -> {
+            cell = flow.getCellIfVisible(3).get();
+            rendered.clear();
+            assertTrue(cell.startEditing());
+            assertSame(editor, cell.getNode().getChildrenUnmodifiable().get(0));
+        });
+        WaitForAsyncUtils.waitForFxEvents();
+        assertFalse(rendered.contains(3));
+        assertEquals(9, rendered.size());
+
+        interact(() -> {
+            rendered.clear();
+            cell.stopEditing();
+            assertTrue(cell.getNode().getChildrenUnmodifiable().isEmpty());
+        });
+        WaitForAsyncUtils.waitForFxEvents();
+        assertTrue(rendered.contains(3));
+    }
+
+    @Test
+    public void sticky_header_is_drawn_over_the_items() {
+        interact(() -> {
+            flow.setSectionStart(item -> item % 10 == 0);
+            rendered.clear();
+            flow.scrollYBy(100.0);
+        });
+        WaitForAsyncUtils.waitForFxEvents();
+        assertEquals(List.of(5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 0), rendered);
+    }
+}
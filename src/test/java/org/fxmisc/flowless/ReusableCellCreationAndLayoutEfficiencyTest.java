@@ -0,0 +1,99 @@
+package org.fxmisc.flowless;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ReusableCellCreationAndLayoutEfficiencyTest extends FlowlessTestBase {
+
+    private ObservableList<String> items;
+    private Counter cellCreations = new Counter();
+    private Counter cellUpdates = new Counter();
+    private Counter cellLayouts = new Counter();
+    private VirtualFlow<String, ColorCell> flow;
+
+    private class ColorCell implements Cell<String, Region> {
+        private final Region reg = new Region() {
+            @Override
+            protected void layoutChildren() {
+                cellLayouts.inc();
+                super.layoutChildren();
+            }
+        };
+
+        ColorCell(String color) {
+            cellCreations.inc();
+            reg.setPrefHeight(16.0);
+            reg.setStyle("-fx-background-color: " + color);
+        }
+
+        @Override
+        public Region getNode() {
+            return reg;
+        }
+
+        @Override
+        public boolean isReusable() {
+            return true;
+        }
+
+        @Override
+        public void updateItem(String color) {
+            cellUpdates.inc();
+            reg.setStyle("-fx-background-color: " + color);
+        }
+    }
+
+    @Override
+    public void start(Stage stage) {
+        // set up items
+        items = FXCollections.observableArrayList();
+        for(int i = 0; i < 20; ++i) {
+            items.addAll("red", "green", "blue", "purple");
+        }
+
+        // set up virtual flow
+        flow = VirtualFlow.createVertical(items, ColorCell::new);
+
+        StackPane stackPane = new StackPane();
+        // 25 cells (each 16px high) fit into the viewport
+        stackPane.getChildren().add(flow);
+        stage.setScene(new Scene(stackPane, 200, 400));
+        stage.show();
+    }
+
+    @Before
+    public void setup() {
+        cellCreations.reset();
+        cellUpdates.reset();
+        cellLayouts.reset();
+    }
+
+    @Test
+    public void replacing_an_item_in_viewport_updates_its_cell_in_place() {
+        ColorCell cell = flow.getCellIfVisible(10).get();
+        Counter parentChanges = new Counter();
+        cell.getNode().parentProperty().addListener(obs -> parentChanges.inc());
+
+        interact(() -> items.set(10, "yellow"));
+        assertEquals(0, cellCreations.getAndReset());
+        assertEquals(1, cellUpdates.getAndReset());
+        assertEquals(0, parentChanges.get());
+        assertSame(cell, flow.getCellIfVisible(10).get());
+    }
+
+    @Test
+    public void replacing_an_item_with_itself_does_not_create_cell() {
+        interact(() -> items.set(10, items.get(10)));
+        assertEquals(0, cellCreations.getAndReset());
+        assertEquals(1, cellUpdates.getAndReset());
+    }
+}
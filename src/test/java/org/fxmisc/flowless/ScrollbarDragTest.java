@@ -0,0 +1,100 @@
+package org.fxmisc.flowless;
+
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.junit.Test;
+import org.testfx.util.WaitForAsyncUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ScrollbarDragTest extends FlowlessTestBase {
+
+    private VirtualFlow<Integer, Cell<Integer, Region>> flow;
+    private VirtualizedScrollPane<VirtualFlow<Integer, Cell<Integer, Region>>> scrollPane;
+    private ScrollBar vbar;
+
+    @Override
+    public void start(Stage stage) {
+        ObservableList<Integer> items = FXCollections.observableArrayList();
+        for(int i = 0; i < 1000; ++i) {
+            items.add(i);
+        }
+
+        flow = VirtualFlow.createVertical(items, i -> {
+            Region reg = new Region();
+            reg.setPrefHeight(20.0);
+            return Cell.wrapNode(reg);
+        });
+        scrollPane = new VirtualizedScrollPane<>(flow);
+
+        StackPane stackPane = new StackPane();
+        stackPane.getChildren().add(scrollPane);
+        stage.setScene(new Scene(stackPane, 200, 200));
+        stage.show();
+
+        vbar = (ScrollBar) scrollPane.getChildrenUnmodifiable().stream()
+                .filter(n -> n instanceof ScrollBar && ((ScrollBar) n).getOrientation() == Orientation.VERTICAL)
+                .findFirst().get();
+    }
+
+    @Test
+    public void throttled_positions_are_passed_on_once_per_pulse() {
+        interact(() -> {
+            scrollPane.setDragThrottling(true);
+            vbar.setValue(vbar.getMax() / 4);
+            vbar.setValue(vbar.getMax() / 2);
+            flow.layout();
+            assertEquals(0, flow.getFirstVisibleIndex());
+        });
+        WaitForAsyncUtils.waitForFxEvents();
+        assertEquals(500, flow.getFirstVisibleIndex(), 10);
+    }
+
+    @Test
+    public void unthrottled_positions_are_passed_on_right_away() {
+        interact(() -> {
+            vbar.setValue(vbar.getMax() / 2);
+            flow.layout();
+            assertEquals(500, flow.getFirstVisibleIndex(), 10);
+        });
+    }
+
+    @Test
+    public void preview_is_shown_while_dragging_and_content_moves_on_release() {
+        interact(() -> scrollPane.setDragPreview(fraction -> {
+            Region preview = new Region();
+            preview.setId("preview");
+            preview.setUserData(fraction);
+            return preview;
+        }));
+
+        // the robot cannot press the mouse in a headless environment, so press the scroll bar through a stand-in
+        BooleanProperty pressed = new SimpleBooleanProperty(false);
+        interact(() -> {
+            scrollPane.setVbarPressedSource(pressed);
+            pressed.set(true);
+            vbar.setValue(vbar.getMax() / 4);
+            vbar.setValue(vbar.getMax() / 2);
+        });
+        Node preview = scrollPane.lookup("#preview");
+        assertTrue(preview.getParent().isVisible());
+        assertEquals(0.5, (Double) preview.getUserData(), 0.0);
+        assertEquals(0, flow.getFirstVisibleIndex());
+
+        interact(() -> pressed.set(false));
+        WaitForAsyncUtils.waitForFxEvents();
+        assertNull(scrollPane.lookup("#preview"));
+        assertEquals(500, flow.getFirstVisibleIndex(), 10);
+    }
+}
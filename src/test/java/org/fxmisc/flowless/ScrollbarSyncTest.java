@@ -0,0 +1,91 @@
+package org.fxmisc.flowless;
+
+import javafx.geometry.Orientation;
+import javafx.scene.Scene;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.junit.Test;
+import org.reactfx.value.Val;
+import org.reactfx.value.Var;
+
+import static org.junit.Assert.assertEquals;
+
+public class ScrollbarSyncTest extends FlowlessTestBase {
+
+    /** Content whose estimates are set directly, and which counts how often it is asked to navigate */
+    private static class Content extends Region implements Virtualized {
+        final Var<Double> totalHeight = Var.newSimpleVar(10000.0);
+        final Var<Double> scrollY = Var.newSimpleVar(0.0);
+        int navigations = 0;
+
+        private final Var<Double> estimatedScrollY = scrollY.asVar(y -> {
+            ++navigations;
+            scrollY.setValue(y);
+        });
+
+        @Override public Val<Double> totalWidthEstimateProperty() { return Val.constant(100.0); }
+        @Override public Val<Double> totalHeightEstimateProperty() { return totalHeight; }
+        @Override public Var<Double> estimatedScrollXProperty() { return Var.newSimpleVar(0.0); }
+        @Override public Var<Double> estimatedScrollYProperty() { return estimatedScrollY; }
+        @Override public void scrollXBy(double deltaX) {}
+        @Override public void scrollYBy(double deltaY) {}
+        @Override public void scrollXToPixel(double pixel) {}
+        @Override public void scrollYToPixel(double pixel) {}
+    }
+
+    private Content content;
+    private ScrollBar vbar;
+
+    @Override
+    public void start(Stage stage) {
+        content = new Content();
+        VirtualizedScrollPane<Content> scrollPane = new VirtualizedScrollPane<>(content);
+
+        StackPane stackPane = new StackPane();
+        stackPane.getChildren().add(scrollPane);
+        stage.setScene(new Scene(stackPane, 200, 200));
+        stage.show();
+
+        vbar = (ScrollBar) scrollPane.getChildrenUnmodifiable().stream()
+                .filter(n -> n instanceof ScrollBar && ((ScrollBar) n).getOrientation() == Orientation.VERTICAL)
+                .findFirst().get();
+    }
+
+    @Test
+    public void estimate_changes_move_the_thumb_without_navigating() {
+        interact(() -> {
+            content.scrollY.setValue(4900.0);
+            assertEquals(5000.0, vbar.getValue(), 0.0);
+
+            // a refinement of the total length moves the thumb
+            content.totalHeight.setValue(20200.0);
+            assertEquals(4949.0, vbar.getValue(), 1.0);
+            assertEquals(0, content.navigations);
+        });
+    }
+
+    @Test
+    public void thumb_does_not_follow_subpixel_changes() {
+        interact(() -> {
+            content.scrollY.setValue(4900.0);
+            double value = vbar.getValue();
+            content.scrollY.setValue(4901.0);
+            assertEquals(value, vbar.getValue(), 0.0);
+            content.scrollY.setValue(4950.0);
+            assertEquals(5051.0, vbar.getValue(), 1.0);
+            assertEquals(0, content.navigations);
+        });
+    }
+
+    @Test
+    public void user_changes_navigate_once() {
+        interact(() -> {
+            vbar.setValue(5000.0);
+            assertEquals(1, content.navigations);
+            assertEquals(4900.0, content.scrollY.getValue(), 0.0);
+            assertEquals(5000.0, vbar.getValue(), 0.0);
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package org.fxmisc.flowless;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Orientation;
+import javafx.scene.Scene;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ScrollbarVisibilityTest extends FlowlessTestBase {
+
+    private ObservableList<Double> heights;
+    private VirtualFlow<Double, Cell<Double, Region>> flow;
+    private VirtualizedScrollPane<VirtualFlow<Double, Cell<Double, Region>>> scrollPane;
+    private ScrollBar vbar;
+
+    @Override
+    public void start(Stage stage) {
+        heights = FXCollections.observableArrayList();
+        for(int i = 0; i < 9; ++i) {
+            heights.add(20.0);
+        }
+
+        flow = VirtualFlow.createVertical(heights, h -> {
+            Region reg = new Region();
+            reg.setPrefHeight(h);
+            return Cell.wrapNode(reg);
+        });
+        scrollPane = new VirtualizedScrollPane<>(flow);
+
+        StackPane stackPane = new StackPane();
+        stackPane.getChildren().add(scrollPane);
+        stage.setScene(new Scene(stackPane, 200, 200));
+        stage.show();
+
+        vbar = (ScrollBar) scrollPane.getChildrenUnmodifiable().stream()
+                .filter(n -> n instanceof ScrollBar && ((ScrollBar) n).getOrientation() == Orientation.VERTICAL)
+                .findFirst().get();
+    }
+
+    @Test
+    public void visibility_is_resolved_in_the_layout_pass_that_follows_a_change() {
+        interact(() -> {
+            assertFalse(vbar.isVisible());
+
+            heights.addAll(20.0, 20.0);
+            scrollPane.layout();
+            assertTrue(vbar.isVisible());
+            assertEquals(200.0 - vbar.getWidth(), flow.getWidth(), 0.0);
+
+            heights.remove(10);
+            heights.set(0, 10.0);
+            scrollPane.layout();
+            assertFalse(vbar.isVisible());
+            assertEquals(200.0, flow.getWidth(), 0.0);
+        });
+    }
+
+    @Test
+    public void shown_scroll_bar_is_only_hidden_once_the_content_fits_with_room_to_spare() {
+        interact(() -> {
+            heights.addAll(20.0, 20.0);
+            scrollPane.layout();
+            assertTrue(vbar.isVisible());
+
+            // 199px of content in a 200px viewport
+            heights.remove(10);
+            heights.set(0, 19.0);
+            scrollPane.layout();
+            assertTrue(vbar.isVisible());
+
+            heights.set(0, 17.0);
+            scrollPane.layout();
+            assertFalse(vbar.isVisible());
+        });
+    }
+}
@@ -0,0 +1,145 @@
+package org.fxmisc.flowless;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SizeIndexTest extends FlowlessTestBase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ObservableList<Integer> items;
+    private StackPane stackPane;
+    private VirtualFlow<Integer, Cell<Integer, Region>> flow;
+
+    private static double lengthOf(int item) {
+        return item % 2 == 0 ? 30.0 : 10.0;
+    }
+
+    private VirtualFlow<Integer, Cell<Integer, Region>> createFlow() {
+        return VirtualFlow.createVertical(items, i -> {
+            Region reg = new Region();
+            reg.setPrefHeight(lengthOf(i));
+            return Cell.wrapNode(reg);
+        });
+    }
+
+    @Override
+    public void start(Stage stage) {
+        // 1000 items, 20000 pixels in total
+        items = FXCollections.observableArrayList();
+        for(int i = 0; i < 1000; ++i) {
+            items.add(i);
+        }
+        flow = createFlow();
+
+        stackPane = new StackPane();
+        stackPane.getChildren().add(flow);
+        stage.setScene(new Scene(stackPane, 200, 200));
+        stage.show();
+    }
+
+    private void waitUntilMeasured() throws TimeoutException {
+        WaitForAsyncUtils.waitFor(10, TimeUnit.SECONDS,
+                () -> flow.measuredLengthFractionProperty().getValue() == 1.0);
+    }
+
+    @Test
+    public void reopened_document_shows_the_same_place_with_exact_lengths() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("sizes.idx");
+        interact(() -> flow.setLengthMeasurer((item, breadth) -> lengthOf(item)));
+        waitUntilMeasured();
+        interact(() -> flow.showAtOffset(500, -5.0));
+        try(SizeIndex index = SizeIndex.open(file, "doc@1")) {
+            assertTrue(index.isEmpty());
+            interact(() -> {
+                try {
+                    flow.saveTo(index);
+                } catch(IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+
+        // a new viewport for the same document, without a length measurer
+        try(SizeIndex index = SizeIndex.open(file, "doc@1")) {
+            assertEquals(1000, index.getItemCount());
+            interact(() -> {
+                flow = createFlow();
+                stackPane.getChildren().setAll(flow);
+                assertTrue(flow.restoreFrom(index));
+            });
+            waitUntilMeasured();
+        }
+        assertEquals(20000.0, flow.totalLengthEstimateProperty().getValue(), 0.1);
+        assertEquals(500, flow.getFirstVisibleIndex());
+        assertEquals(-5.0, flow.getCellIfVisible(500).get().getNode().getLayoutY(), 0.1);
+        // 250 items of length 30 and 250 of length 10 before item 500
+        assertEquals(10005.0, flow.lengthOffsetEstimateProperty().getValue(), 0.1);
+    }
+
+    @Test
+    public void lengths_are_loaded_after_the_items_change() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("sizes.idx");
+        interact(() -> flow.setLengthMeasurer((item, breadth) -> lengthOf(item)));
+        waitUntilMeasured();
+        try(SizeIndex index = SizeIndex.open(file, "doc@1")) {
+            interact(() -> {
+                try {
+                    flow.saveTo(index);
+                } catch(IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+
+        try(SizeIndex index = SizeIndex.open(file, "doc@1")) {
+            interact(() -> {
+                flow = createFlow();
+                stackPane.getChildren().setAll(flow);
+                assertTrue(flow.restoreFrom(index));
+                // before anything is loaded, an item of length 10 is added in front of the others
+                items.add(0, 1);
+                flow.showAsFirst(0);
+            });
+            waitUntilMeasured();
+        }
+        assertEquals(20010.0, flow.totalLengthEstimateProperty().getValue(), 0.1);
+    }
+
+    @Test
+    public void index_of_another_document_is_empty() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("sizes.idx");
+        try(SizeIndex index = SizeIndex.open(file, "doc@1")) {
+            interact(() -> {
+                try {
+                    flow.saveTo(index);
+                } catch(IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            assertFalse(index.isEmpty());
+        }
+        try(SizeIndex index = SizeIndex.open(file, "doc@2")) {
+            assertTrue(index.isEmpty());
+            assertFalse(flow.restoreFrom(index));
+        }
+    }
+}
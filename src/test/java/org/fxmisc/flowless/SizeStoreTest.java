@@ -0,0 +1,88 @@
+package org.fxmisc.flowless;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SizeStoreTest {
+
+    @Test
+    public void inserting_and_removing_items_keeps_the_sizes_of_the_other_items() {
+        SizeStore store = new SizeStore(true);
+        store.replace(0, 0, 5000);
+        store.set(10, 16.0);
+        store.set(3000, 32.0);
+
+        // insert across a page boundary, then remove a range that spans several pages
+        store.replace(1020, 0, 100);
+        assertTrue(store.isKnown(3100));
+        assertEquals(32.0, store.get(3100), 0.0);
+
+        store.replace(500, 2000, 0);
+        assertEquals(3100, store.size());
+        assertEquals(16.0, store.get(10), 0.0);
+        assertEquals(32.0, store.get(1100), 0.0);
+        assertFalse(store.isKnown(1099));
+
+        assertEquals(2, store.knownCount());
+        assertEquals(48.0, store.knownSum(), 0.0);
+        assertEquals(32.0, store.knownMax(), 0.0);
+        assertEquals(1, store.knownCountBefore(1100));
+        assertEquals(16.0, store.knownSumBefore(1100), 0.0);
+    }
+
+    @Test
+    public void forgetting_the_greatest_size_updates_the_maximum() {
+        SizeStore store = new SizeStore(true);
+        store.replace(0, 0, 10);
+        store.set(2, 10.0);
+        store.set(7, 20.0);
+        store.forget(7);
+        assertEquals(10.0, store.knownMax(), 0.0);
+
+        store.forgetAll();
+        assertEquals(10, store.size());
+        assertEquals(0, store.knownCount());
+        assertEquals(Double.NEGATIVE_INFINITY, store.knownMax(), 0.0);
+    }
+
+    @Test
+    public void robust_statistics_ignore_outliers() {
+        SizeStore store = new SizeStore(true);
+        store.replace(0, 0, 20);
+        for(int i = 0; i < 19; ++i) {
+            store.set(i, 16.0);
+        }
+        store.set(19, 400.0);
+        assertEquals(35.2, store.knownSum() / store.knownCount(), 1e-9);
+        assertEquals(16.0, store.knownMedian(), 0.0);
+        assertEquals(16.0, store.knownTrimmedMean(0.1), 0.0);
+
+        store.set(19, 20.0);
+        store.replace(5, 15, 0);
+        store.set(3, 24.0);
+        assertEquals(16.0, store.knownMedian(), 0.0);
+        assertEquals(17.6, store.knownTrimmedMean(0.0), 1e-9);
+    }
+
+    @Test
+    public void sizes_known_before_counting_starts_are_counted() {
+        SizeStore store = new SizeStore(false);
+        store.replace(0, 0, 3000);
+        store.set(10, 16.0);
+        store.set(1500, 16.0);
+        store.set(2999, 400.0);
+
+        store.setCountValues(true);
+        assertEquals(16.0, store.knownMedian(), 0.0);
+        assertEquals(400.0, store.knownMax(), 0.0);
+
+        store.replace(0, 20, 0);
+        store.setCountValues(false);
+        store.set(0, 32.0);
+        store.setCountValues(true);
+        assertEquals(32.0, store.knownMedian(), 0.0);
+    }
+}
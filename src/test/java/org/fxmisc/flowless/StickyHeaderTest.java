@@ -0,0 +1,119 @@
+package org.fxmisc.flowless;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Group;
+import javafx.scene.Scene;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StickyHeaderTest extends FlowlessTestBase {
+
+    private ObservableList<Integer> items;
+    private VirtualFlow<Integer, Cell<Integer, Region>> flow;
+    private final Counter sectionStartTests = new Counter();
+
+    @Override
+    public void start(Stage stage) {
+        items = FXCollections.observableArrayList();
+        for(int i = 0; i < 100; ++i) {
+            items.add(i);
+        }
+
+        flow = VirtualFlow.createVertical(items, item -> {
+            Region reg = new Region();
+            reg.setPrefHeight(20.0);
+            reg.setUserData(item);
+            return new Cell<Integer, Region>() {
+                @Override public Region getNode() { return reg; }
+                @Override public boolean isReusable() { return true; }
+                @Override public void updateItem(Integer item) { reg.setUserData(item); }
+            };
+        });
+        // sections of 10 items each
+        flow.setSectionStart(i -> {
+            sectionStartTests.inc();
+            return i % 10 == 0;
+        });
+
+        StackPane stackPane = new StackPane();
+        stackPane.getChildren().add(flow);
+        stage.setScene(new Scene(stackPane, 100, 100));
+        stage.show();
+    }
+
+    private Group headerPane() {
+        return (Group) flow.lookup(".sticky-header-pane");
+    }
+
+    @Test
+    public void the_header_of_the_first_visible_section_is_pinned() {
+        interact(() -> {
+            flow.layout();
+            // the header is in its place
+            assertTrue(headerPane().getChildren().isEmpty());
+
+            flow.scrollYBy(50.0);
+            flow.layout();
+            assertEquals(1, headerPane().getChildren().size());
+            Region header = (Region) headerPane().getChildren().get(0);
+            assertEquals(0, header.getUserData());
+            assertEquals(0.0, header.getLayoutY(), 0.0);
+            assertEquals(20.0, header.getHeight(), 0.0);
+
+            flow.scrollYBy(300.0);
+            flow.layout();
+            header = (Region) headerPane().getChildren().get(0);
+            assertEquals(10, header.getUserData());
+        });
+    }
+
+    @Test
+    public void the_next_header_pushes_the_pinned_one_out() {
+        interact(() -> {
+            flow.scrollYBy(185.0);
+            flow.layout();
+            Region header = (Region) headerPane().getChildren().get(0);
+            assertEquals(0, header.getUserData());
+            assertEquals(-5.0, header.getLayoutY(), 0.0);
+
+            flow.scrollYBy(15.0);
+            flow.layout();
+            assertTrue(headerPane().getChildren().isEmpty());
+        });
+    }
+
+    @Test
+    public void scrolling_within_a_section_does_not_look_for_its_start_again() {
+        interact(() -> {
+            flow.scrollYBy(160.0);
+            flow.layout();
+            sectionStartTests.reset();
+
+            // item 8 stays the first visible one, so only the items that may push the header out are looked at,
+            // rather than the items back to the start of the section
+            flow.scrollYBy(1.0);
+            flow.layout();
+            assertTrue(sectionStartTests.get() <= 2);
+        });
+    }
+
+    @Test
+    public void the_header_is_looked_up_again_after_the_items_change() {
+        interact(() -> {
+            flow.scrollYBy(50.0);
+            flow.layout();
+
+            // a section starts before the first visible item
+            items.add(1, 10);
+            flow.layout();
+            Region header = (Region) headerPane().getChildren().get(0);
+            assertEquals(10, header.getUserData());
+        });
+    }
+}
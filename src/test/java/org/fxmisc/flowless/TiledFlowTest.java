@@ -0,0 +1,89 @@
+package org.fxmisc.flowless;
+
+import java.util.List;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.junit.Test;
+import org.testfx.util.WaitForAsyncUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TiledFlowTest extends FlowlessTestBase {
+
+    private final Counter tileCreations = new Counter();
+    private VirtualFlow<List<Integer>, TileRow<Integer, Cell<Integer, Region>>> flow;
+
+    @Override
+    public void start(Stage stage) {
+        ObservableList<Integer> items = FXCollections.observableArrayList();
+        for(int i = 0; i < 100; ++i) {
+            items.add(i);
+        }
+
+        flow = VirtualFlow.createVerticalTiled(items, item -> {
+            tileCreations.inc();
+            Region content = new Region();
+            content.setPrefSize(50.0, 40.0);
+            StackPane tile = new StackPane(content);
+            return new Cell<Integer, Region>() {
+                @Override public Region getNode() { return tile; }
+                @Override public boolean isReusable() { return true; }
+                @Override public void updateItem(Integer item) {}
+            };
+        });
+
+        StackPane stackPane = new StackPane();
+        stackPane.getChildren().add(flow);
+        stage.setScene(new Scene(stackPane, 220, 200));
+        stage.show();
+    }
+
+    @Test
+    public void items_are_wrapped_into_rows_that_fit_the_width() {
+        WaitForAsyncUtils.waitForFxEvents();
+        interact(() -> {
+            TileRow<Integer, Cell<Integer, Region>> row = flow.getCellIfVisible(1).get();
+            assertEquals(4, row.getTiles().size());
+            assertEquals(4, row.getFirstItemIndex());
+            assertEquals(40.0, row.getNode().getLayoutY(), 0.0);
+            assertEquals(100.0, row.getTiles().get(2).getNode().getLayoutX(), 0.0);
+
+            // the tiles of the 5 rows displayed before the tile width was known were reused
+            assertTrue(tileCreations.get() < 20 + 5);
+        });
+    }
+
+    @Test
+    public void tiles_are_reused_when_the_number_of_tiles_per_row_changes() {
+        WaitForAsyncUtils.waitForFxEvents();
+        tileCreations.reset();
+
+        interact(() -> flow.setMaxWidth(120.0));
+        WaitForAsyncUtils.waitForFxEvents();
+        interact(() -> {
+            TileRow<Integer, Cell<Integer, Region>> row = flow.getCellIfVisible(2).get();
+            assertEquals(2, row.getTiles().size());
+            assertEquals(4, row.getFirstItemIndex());
+            assertEquals(80.0, row.getNode().getLayoutY(), 0.0);
+            assertEquals(0, tileCreations.get());
+        });
+    }
+
+    @Test
+    public void row_is_measured_again_when_the_content_of_a_tile_changes_size() {
+        WaitForAsyncUtils.waitForFxEvents();
+        interact(() -> {
+            // e.g. an image that finished loading
+            StackPane tile = (StackPane) flow.getCellIfVisible(1).get().getTiles().get(2).getNode();
+            ((Region) tile.getChildren().get(0)).setPrefHeight(100.0);
+            flow.layout();
+            assertEquals(40.0 + 100.0, flow.getCellIfVisible(2).get().getNode().getLayoutY(), 0.0);
+        });
+    }
+}
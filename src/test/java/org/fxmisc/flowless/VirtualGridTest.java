@@ -0,0 +1,113 @@
+package org.fxmisc.flowless;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VirtualGridTest extends FlowlessTestBase {
+
+    private static final Object CELL_TYPE = new Object();
+
+    private final Counter cellCreations = new Counter();
+    private ObservableList<Integer> rows;
+    private VirtualGrid<Integer, Cell<Integer, Region>> grid;
+
+    private class Column implements GridColumn<Integer, Cell<Integer, Region>> {
+        @Override
+        public Cell<Integer, Region> createCell(Integer row) {
+            cellCreations.inc();
+            Region reg = new Region();
+            reg.setPrefSize(50.0, 20.0);
+            return new Cell<Integer, Region>() {
+                @Override public Region getNode() { return reg; }
+                @Override public boolean isReusable() { return true; }
+                @Override public void updateItem(Integer item) {}
+            };
+        }
+
+        @Override
+        public void updateCell(Cell<Integer, Region> cell, Integer row) {
+            cell.updateItem(row);
+        }
+
+        @Override
+        public Object getCellType() {
+            return CELL_TYPE;
+        }
+    }
+
+    @Override
+    public void start(Stage stage) {
+        rows = FXCollections.observableArrayList();
+        for(int i = 0; i < 1_000_000; ++i) {
+            rows.add(i);
+        }
+        ObservableList<Column> columns = FXCollections.observableArrayList();
+        for(int i = 0; i < 500; ++i) {
+            columns.add(new Column());
+        }
+        grid = new VirtualGrid<>(rows, columns);
+
+        StackPane stackPane = new StackPane();
+        stackPane.getChildren().add(grid);
+        stage.setScene(new Scene(stackPane, 200, 100));
+        stage.show();
+    }
+
+    @Test
+    public void only_the_visible_cells_are_created() {
+        interact(() -> {
+            grid.layout();
+            assertEquals(4 * 5, grid.getChildrenUnmodifiable().size());
+            assertEquals(20, cellCreations.get());
+            assertEquals(500 * 50.0, grid.totalWidthEstimateProperty().getValue(), 0.0);
+            assertEquals(1_000_000 * 20.0, grid.totalHeightEstimateProperty().getValue(), 0.0);
+
+            Region node = grid.getCellIfVisible(2, 1).get().getNode();
+            assertEquals(50.0, node.getLayoutX(), 0.0);
+            assertEquals(40.0, node.getLayoutY(), 0.0);
+        });
+    }
+
+    @Test
+    public void cells_of_the_same_type_are_reused_across_columns() {
+        interact(() -> {
+            grid.layout();
+            cellCreations.reset();
+
+            grid.scrollXBy(10_000.0);
+            grid.scrollYBy(200_000.0);
+            grid.layout();
+            assertEquals(0, cellCreations.get());
+            assertFalse(grid.getCellIfVisible(0, 0).isPresent());
+
+            Region node = grid.getCellIfVisible(10_001, 201).get().getNode();
+            assertEquals(50.0, node.getLayoutX(), 0.0);
+            assertEquals(20.0, node.getLayoutY(), 0.0);
+        });
+    }
+
+    @Test
+    public void scroll_offset_stays_in_range_when_rows_are_removed_at_the_end() {
+        interact(() -> {
+            grid.layout();
+            grid.scrollYBy(Double.MAX_VALUE);
+            grid.layout();
+            assertTrue(grid.getCellIfVisible(999_999, 0).isPresent());
+
+            rows.remove(100, rows.size());
+            grid.layout();
+            assertEquals(100 * 20.0 - 100.0, grid.estimatedScrollYProperty().getValue(), 0.0);
+            Region node = grid.getCellIfVisible(99, 0).get().getNode();
+            assertEquals(80.0, node.getLayoutY(), 0.0);
+        });
+    }
+}
@@ -0,0 +1,92 @@
+package org.fxmisc.flowless;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class VisibleRangeTest extends FlowlessTestBase {
+
+    private VirtualFlow<Double, SlicedCell> flow;
+    private SlicedCell bigCell;
+
+    /** A cell that only lays out the part of it that is in view */
+    private static class SlicedCell implements Cell<Double, Region> {
+        final Region slice = new Region();
+        final Region node = new Region() {
+            {
+                getChildren().add(slice);
+            }
+
+            @Override
+            protected void layoutChildren() {
+                slice.resizeRelocate(0.0, start, getWidth(), end - start);
+            }
+        };
+        double start = Double.NaN;
+        double end = Double.NaN;
+
+        SlicedCell(double length) {
+            node.setPrefHeight(length);
+        }
+
+        @Override
+        public Region getNode() {
+            return node;
+        }
+
+        @Override
+        public void updateVisibleRange(double start, double end) {
+            this.start = start;
+            this.end = end;
+            node.requestLayout();
+        }
+    }
+
+    @Override
+    public void start(Stage stage) {
+        ObservableList<Double> items = FXCollections.observableArrayList(100.0, 1000.0, 100.0);
+        flow = VirtualFlow.createVertical(items, length -> {
+            SlicedCell cell = new SlicedCell(length);
+            if(length == 1000.0) {
+                bigCell = cell;
+            }
+            return cell;
+        });
+
+        StackPane stackPane = new StackPane(flow);
+        stage.setScene(new Scene(stackPane, 200, 300));
+        stage.show();
+    }
+
+    @Test
+    public void cells_are_told_which_part_of_them_is_in_view() {
+        interact(() -> {
+            flow.layout();
+            assertEquals(0.0, bigCell.start, 0.0);
+            assertEquals(200.0, bigCell.end, 0.0);
+
+            flow.scrollYBy(150.0);
+            flow.layout();
+            assertEquals(50.0, bigCell.start, 0.0);
+            assertEquals(350.0, bigCell.end, 0.0);
+
+            // the cell was laid out again with its new range in the same pass
+            assertEquals(50.0, bigCell.slice.getLayoutY(), 0.0);
+            assertEquals(300.0, bigCell.slice.getHeight(), 0.0);
+
+            flow.scrollYBy(750.0);
+            flow.layout();
+            assertEquals(800.0, bigCell.start, 0.0);
+            assertEquals(1000.0, bigCell.end, 0.0);
+
+            // the size estimates are based on the cell's full length
+            assertEquals(1200.0, flow.totalLengthEstimateProperty().getValue(), 0.0);
+        });
+    }
+}
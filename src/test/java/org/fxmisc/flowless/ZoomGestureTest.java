@@ -0,0 +1,71 @@
+package org.fxmisc.flowless;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ZoomGestureTest extends FlowlessTestBase {
+
+    private VirtualFlow<Integer, Cell<Integer, Region>> flow;
+    private ScaledVirtualized<VirtualFlow<Integer, Cell<Integer, Region>>> scaled;
+    private final Counter cellCreations = new Counter();
+    private StackPane root;
+
+    @Override
+    public void start(Stage stage) {
+        ObservableList<Integer> items = FXCollections.observableArrayList();
+        for(int i = 0; i < 100; ++i) {
+            items.add(i);
+        }
+
+        flow = VirtualFlow.createVertical(items, i -> {
+            cellCreations.inc();
+            Region reg = new Region();
+            reg.setPrefHeight(20.0);
+            return Cell.wrapNode(reg);
+        });
+        scaled = new ScaledVirtualized<>(flow);
+
+        root = new StackPane();
+        root.getChildren().add(new VirtualizedScrollPane<>(scaled));
+        stage.setScene(new Scene(root, 200, 200));
+        stage.show();
+    }
+
+    @Test
+    public void content_is_laid_out_once_at_the_end_of_a_gesture() {
+        interact(() -> {
+            double height = flow.getHeight();
+            cellCreations.reset();
+
+            scaled.beginZoomGesture();
+            assertTrue(scaled.isZoomGestureActive());
+            assertFalse(flow.isVisible());
+            assertTrue(scaled.getChildrenUnmodifiable().get(1) instanceof ImageView);
+
+            for(double zoom = 0.9; zoom >= 0.5; zoom -= 0.1) {
+                scaled.getZoom().setY(zoom);
+                root.layout();
+            }
+            assertEquals(height, flow.getHeight(), 0.0);
+            assertEquals(0, cellCreations.getAndReset());
+
+            scaled.endZoomGesture();
+            root.layout();
+            assertFalse(scaled.isZoomGestureActive());
+            assertTrue(flow.isVisible());
+            assertEquals(1, scaled.getChildrenUnmodifiable().size());
+            assertEquals(height / scaled.getZoom().getY(), flow.getHeight(), 1.0);
+            assertEquals(10, cellCreations.getAndReset(), 1);
+        });
+    }
+}